@@ -0,0 +1,40 @@
+package bignums.benchmark;
+
+import java.io.IOException;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the usual JMH command line options.  Unless another
+ * format is requested with <code>-rf</code>, results are written as JSON to
+ * <code>jmh-result.json</code> (or the file given with <code>-rff</code>) so
+ * they can be compared between runs.
+ */
+public class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    /**
+     * @param args JMH command line options, e.g. <code>Multiply -p digits=1000</code>
+     * @throws CommandLineOptionException if the options are invalid
+     * @throws RunnerException if a benchmark fails
+     * @throws IOException if the help text cannot be written
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        if (cmdOptions.shouldHelp()) {
+            cmdOptions.showHelp();
+            return;
+        }
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cmdOptions);
+        if (!cmdOptions.getResultFormat().hasValue())
+            options.resultFormat(ResultFormatType.JSON);
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Arithmetic on decimals with the given number of significant digits: adding
+ * numbers of different scales, multiplying, dividing to the same precision,
+ * and conversion to a string and to a double.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BigDecimalBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000"})
+    int digits;
+
+    bignums.BigDecimal a, b;
+    bignums.MathContext mc;
+    java.math.BigDecimal ja, jb;
+    java.math.MathContext jmc;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        java.math.BigInteger x = Numbers.random(digits, rng);
+        java.math.BigInteger y = Numbers.random(digits, rng);
+        ja = new java.math.BigDecimal(x, digits/2);
+        jb = new java.math.BigDecimal(y, digits/3);
+        jmc = new java.math.MathContext(digits);
+        a = new bignums.BigDecimal(Numbers.toBignums(x), digits/2);
+        b = new bignums.BigDecimal(Numbers.toBignums(y), digits/3);
+        mc = new bignums.MathContext(digits);
+    }
+
+    @Benchmark
+    public bignums.BigDecimal add() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public java.math.BigDecimal addJava() {
+        return ja.add(jb);
+    }
+
+    @Benchmark
+    public bignums.BigDecimal multiply() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public java.math.BigDecimal multiplyJava() {
+        return ja.multiply(jb);
+    }
+
+    @Benchmark
+    public bignums.BigDecimal divide() {
+        return a.divide(b, mc);
+    }
+
+    @Benchmark
+    public java.math.BigDecimal divideJava() {
+        return ja.divide(jb, jmc);
+    }
+
+    @Benchmark
+    public String toStringBignums() {
+        return a.toString();
+    }
+
+    @Benchmark
+    public String toStringJava() {
+        return ja.toString();
+    }
+
+    @Benchmark
+    public double doubleValue() {
+        return a.doubleValue();
+    }
+
+    @Benchmark
+    public double doubleValueJava() {
+        return ja.doubleValue();
+    }
+}
@@ -0,0 +1,64 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Conversion to and from decimal strings, and to doubles.  Parsing is quadratic in
+ * <code>java.math.BigInteger</code>, so {@link #parseJava()} takes very long at
+ * the largest default size; exclude it with a regular expression such as
+ * <code>Conversion.*[a-z]$</code> if only <code>bignums</code> is of interest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+    int digits;
+
+    bignums.BigInteger a;
+    java.math.BigInteger ja;
+    String decimal;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        ja = Numbers.random(digits, rng);
+        a = Numbers.toBignums(ja);
+        decimal = a.toString();
+    }
+
+    @Benchmark
+    public String toStringBignums() {
+        return a.toString();
+    }
+
+    @Benchmark
+    public String toStringJava() {
+        return ja.toString();
+    }
+
+    @Benchmark
+    public bignums.BigInteger parse() {
+        return new bignums.BigInteger(decimal);
+    }
+
+    @Benchmark
+    public java.math.BigInteger parseJava() {
+        return new java.math.BigInteger(decimal);
+    }
+
+    @Benchmark
+    public double doubleValue() {
+        return a.doubleValue();
+    }
+
+    @Benchmark
+    public double doubleValueJava() {
+        return ja.doubleValue();
+    }
+}
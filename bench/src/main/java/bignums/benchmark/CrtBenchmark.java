@@ -0,0 +1,55 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Chinese remainder reconstruction from <code>count</code> residues modulo 64-bit primes, with
+ * a precomputed context and with the direct formula <code>sum(r<sub>i</sub> c<sub>i</sub>
+ * M/m<sub>i</sub>) mod M</code>, whose constants are also precomputed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrtBenchmark {
+    @Param({"10", "100", "1000"})
+    int count;
+
+    bignums.CrtContext crt;
+    bignums.BigInteger product;
+    bignums.BigInteger[] moduli, cofactors, inverses, residues;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(count);
+        moduli = new bignums.BigInteger[count];
+        for (int i=0; i<count; i++)
+            moduli[i] = Numbers.toBignums(java.math.BigInteger.probablePrime(64, rng));
+        crt = new bignums.CrtContext(moduli);
+        product = crt.getProduct();
+        cofactors = new bignums.BigInteger[count];
+        inverses = new bignums.BigInteger[count];
+        for (int i=0; i<count; i++) {
+            cofactors[i] = product.divide(moduli[i]);
+            inverses[i] = cofactors[i].modInverse(moduli[i]);
+        }
+        residues = crt.mod(new bignums.BigInteger(product.bitLength(), rng));
+    }
+
+    @Benchmark
+    public bignums.BigInteger reconstruct() {
+        return crt.reconstruct(residues);
+    }
+
+    @Benchmark
+    public bignums.BigInteger reconstructDirect() {
+        bignums.BigInteger sum = bignums.BigInteger.ZERO;
+        for (int i=0; i<count; i++)
+            sum = sum.add(residues[i].multiply(inverses[i]).mod(moduli[i]).multiply(cofactors[i]));
+        return sum.mod(product);
+    }
+}
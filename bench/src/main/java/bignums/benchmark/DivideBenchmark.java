@@ -0,0 +1,40 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Division of a number with twice as many digits as the divisor. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DivideBenchmark {
+    /** The number of digits of the divisor */
+    @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+    int digits;
+
+    bignums.BigInteger a, b;
+    java.math.BigInteger ja, jb;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        ja = Numbers.random(2*digits, rng);
+        jb = Numbers.random(digits, rng);
+        a = Numbers.toBignums(ja);
+        b = Numbers.toBignums(jb);
+    }
+
+    @Benchmark
+    public bignums.BigInteger[] divideAndRemainder() {
+        return a.divideAndRemainder(b);
+    }
+
+    @Benchmark
+    public java.math.BigInteger[] divideAndRemainderJava() {
+        return ja.divideAndRemainder(jb);
+    }
+}
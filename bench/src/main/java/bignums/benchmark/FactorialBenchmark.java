@@ -0,0 +1,42 @@
+package bignums.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Factorial, double factorial and central binomial coefficient of <code>n</code>, and the
+ * factorial computed with a loop of multiplications by a single word for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FactorialBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    int n;
+
+    @Benchmark
+    public bignums.BigInteger factorial() {
+        return bignums.BigInteger.factorial(n);
+    }
+
+    @Benchmark
+    public bignums.BigInteger doubleFactorial() {
+        return bignums.BigInteger.doubleFactorial(n);
+    }
+
+    @Benchmark
+    public bignums.BigInteger binomial() {
+        return bignums.BigInteger.binomial(n, n/2);
+    }
+
+    @Benchmark
+    public bignums.BigInteger factorialLoop() {
+        bignums.BigInteger factorial = bignums.BigInteger.ONE;
+        for (int i=2; i<=n; i++)
+            factorial = factorial.multiply(bignums.BigInteger.valueOf(i));
+        return factorial;
+    }
+}
@@ -0,0 +1,60 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Exponentiation of a fixed base modulo an odd modulus of the given number of
+ * digits, with exponents as long as the modulus, using a
+ * {@link bignums.FixedBaseExponentiator} with the given number of teeth and
+ * tables, and using <code>modPow</code>.  The time to build the table is not
+ * included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FixedBaseBenchmark {
+    @Param({"300", "600", "1200"})
+    int digits;
+
+    @Param({"4", "6", "8"})
+    int teeth;
+
+    @Param({"1", "2", "4"})
+    int tables;
+
+    bignums.BigInteger base, exponent, modulus;
+    bignums.FixedBaseExponentiator exponentiator;
+    java.math.BigInteger jbase, jexponent, jmodulus;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        jmodulus = Numbers.random(digits, rng).setBit(0);
+        jbase = Numbers.random(digits, rng).mod(jmodulus);
+        jexponent = Numbers.random(digits, rng);
+        modulus = Numbers.toBignums(jmodulus);
+        base = Numbers.toBignums(jbase);
+        exponent = Numbers.toBignums(jexponent);
+        exponentiator = new bignums.FixedBaseExponentiator(base, modulus, jexponent.bitLength(), teeth, tables);
+    }
+
+    @Benchmark
+    public bignums.BigInteger fixedBase() {
+        return exponentiator.modPow(exponent);
+    }
+
+    @Benchmark
+    public bignums.BigInteger modPow() {
+        return base.modPow(exponent, modulus);
+    }
+
+    @Benchmark
+    public java.math.BigInteger modPowJava() {
+        return jbase.modPow(jexponent, jmodulus);
+    }
+}
@@ -0,0 +1,63 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Greatest common divisor, extended GCD and modular inverse of two numbers with
+ * the same number of digits.
+ * <code>java.math.BigInteger.gcd</code> is quadratic, so the default sizes
+ * end at 10<sup>5</sup> digits; use <code>-p digits=...</code> to go further.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GcdBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000"})
+    int digits;
+
+    bignums.BigInteger a, b, m;
+    java.math.BigInteger ja, jb, jm;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        ja = Numbers.random(digits, rng);
+        jb = Numbers.random(digits, rng);
+        jm = jb.setBit(0);
+        while (!ja.gcd(jm).equals(java.math.BigInteger.ONE))
+            ja = ja.add(java.math.BigInteger.ONE);
+        a = Numbers.toBignums(ja);
+        b = Numbers.toBignums(jb);
+        m = Numbers.toBignums(jm);
+    }
+
+    @Benchmark
+    public bignums.BigInteger gcd() {
+        return a.gcd(b);
+    }
+
+    @Benchmark
+    public java.math.BigInteger gcdJava() {
+        return ja.gcd(jb);
+    }
+
+    @Benchmark
+    public bignums.BigInteger[] gcdExtended() {
+        return a.gcdExtended(b);
+    }
+
+    @Benchmark
+    public bignums.BigInteger modInverse() {
+        return a.modInverse(m);
+    }
+
+    @Benchmark
+    public java.math.BigInteger modInverseJava() {
+        return ja.modInverse(jm);
+    }
+}
@@ -0,0 +1,107 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Repeated modular arithmetic with a fixed odd modulus of the given number of
+ * digits, with and without a {@link bignums.ModulusContext}.  The short exponent
+ * 65537, as in RSA verification, shows the per-call setup that a context saves.
+ * The inversion benchmarks invert 1000 numbers one by one and in a batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModulusContextBenchmark {
+    @Param({"300", "600", "1200"})
+    int digits;
+
+    bignums.BigInteger a, b, exponent, shortExponent, modulus;
+    bignums.BigInteger[] values;
+    bignums.ModulusContext context;
+    java.math.BigInteger ja, jexponent, jshortExponent, jmodulus;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        jmodulus = Numbers.random(digits, rng).setBit(0);
+        ja = Numbers.random(digits, rng).mod(jmodulus);
+        jexponent = Numbers.random(digits, rng);
+        jshortExponent = java.math.BigInteger.valueOf(65537);
+        modulus = Numbers.toBignums(jmodulus);
+        a = Numbers.toBignums(ja);
+        b = Numbers.toBignums(Numbers.random(digits, rng).mod(jmodulus));
+        exponent = Numbers.toBignums(jexponent);
+        shortExponent = Numbers.toBignums(jshortExponent);
+        context = new bignums.ModulusContext(modulus);
+        values = new bignums.BigInteger[1000];
+        for (int i=0; i<values.length; i++) {
+            java.math.BigInteger v = Numbers.random(digits, rng).mod(jmodulus);
+            while (!v.gcd(jmodulus).equals(java.math.BigInteger.ONE))
+                v = v.add(java.math.BigInteger.ONE);
+            values[i] = Numbers.toBignums(v);
+        }
+    }
+
+    @Benchmark
+    public bignums.BigInteger modPow() {
+        return a.modPow(exponent, modulus);
+    }
+
+    @Benchmark
+    public bignums.BigInteger modPowContext() {
+        return context.modPow(a, exponent);
+    }
+
+    @Benchmark
+    public java.math.BigInteger modPowJava() {
+        return ja.modPow(jexponent, jmodulus);
+    }
+
+    @Benchmark
+    public bignums.BigInteger modPowShort() {
+        return a.modPow(shortExponent, modulus);
+    }
+
+    @Benchmark
+    public bignums.BigInteger modPowShortContext() {
+        return context.modPow(a, shortExponent);
+    }
+
+    @Benchmark
+    public java.math.BigInteger modPowShortJava() {
+        return ja.modPow(jshortExponent, jmodulus);
+    }
+
+    @Benchmark
+    public bignums.BigInteger modMultiply() {
+        return a.multiply(b).mod(modulus);
+    }
+
+    @Benchmark
+    public bignums.BigInteger modMultiplyContext() {
+        return context.modMultiply(a, b);
+    }
+
+    @Benchmark
+    public bignums.BigInteger[] modInverseLoop() {
+        bignums.BigInteger[] result = new bignums.BigInteger[values.length];
+        for (int i=0; i<values.length; i++)
+            result[i] = values[i].modInverse(modulus);
+        return result;
+    }
+
+    @Benchmark
+    public bignums.BigInteger[] modInverseAll() {
+        return context.modInverseAll(values);
+    }
+
+    @Benchmark
+    public bignums.BigInteger[] parallelModInverseAll() {
+        return context.parallelModInverseAll(values);
+    }
+}
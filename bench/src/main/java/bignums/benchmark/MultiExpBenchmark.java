@@ -0,0 +1,67 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Products of the given number of powers modulo an odd modulus of the given
+ * number of digits, with exponents as long as the modulus, computed with
+ * <code>modPowProduct</code> and with separate <code>modPow</code> calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiExpBenchmark {
+    @Param({"300", "600"})
+    int digits;
+
+    @Param({"2", "4", "16", "64"})
+    int bases;
+
+    bignums.BigInteger[] base, exponent;
+    bignums.BigInteger modulus;
+    java.math.BigInteger[] jbase, jexponent;
+    java.math.BigInteger jmodulus;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        jmodulus = Numbers.random(digits, rng).setBit(0);
+        modulus = Numbers.toBignums(jmodulus);
+        jbase = new java.math.BigInteger[bases];
+        jexponent = new java.math.BigInteger[bases];
+        base = new bignums.BigInteger[bases];
+        exponent = new bignums.BigInteger[bases];
+        for (int i=0; i<bases; i++) {
+            jbase[i] = Numbers.random(digits, rng).mod(jmodulus);
+            jexponent[i] = Numbers.random(digits, rng);
+            base[i] = Numbers.toBignums(jbase[i]);
+            exponent[i] = Numbers.toBignums(jexponent[i]);
+        }
+    }
+
+    @Benchmark
+    public bignums.BigInteger modPowProduct() {
+        return bignums.BigInteger.modPowProduct(base, exponent, modulus);
+    }
+
+    @Benchmark
+    public bignums.BigInteger modPow() {
+        bignums.BigInteger result = bignums.BigInteger.ONE;
+        for (int i=0; i<bases; i++)
+            result = result.multiply(base[i].modPow(exponent[i], modulus)).mod(modulus);
+        return result;
+    }
+
+    @Benchmark
+    public java.math.BigInteger modPowJava() {
+        java.math.BigInteger result = java.math.BigInteger.ONE;
+        for (int i=0; i<bases; i++)
+            result = result.multiply(jbase[i].modPow(jexponent[i], jmodulus)).mod(jmodulus);
+        return result;
+    }
+}
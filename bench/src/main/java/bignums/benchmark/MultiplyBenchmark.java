@@ -0,0 +1,49 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Multiplication and squaring of two numbers with the same number of digits. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiplyBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000", "1000000", "10000000"})
+    int digits;
+
+    bignums.BigInteger a, b;
+    java.math.BigInteger ja, jb;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        ja = Numbers.random(digits, rng);
+        jb = Numbers.random(digits, rng);
+        a = Numbers.toBignums(ja);
+        b = Numbers.toBignums(jb);
+    }
+
+    @Benchmark
+    public bignums.BigInteger multiply() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public java.math.BigInteger multiplyJava() {
+        return ja.multiply(jb);
+    }
+
+    @Benchmark
+    public bignums.BigInteger square() {
+        return a.square();
+    }
+
+    @Benchmark
+    public java.math.BigInteger squareJava() {
+        return ja.multiply(ja);
+    }
+}
@@ -0,0 +1,42 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Integer k-th root of a number with a given number of digits, and the perfect power
+ * test of a random odd number, which is not a perfect power.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NthRootBenchmark {
+    @Param({"100", "1000", "10000", "100000"})
+    int digits;
+
+    @Param({"3", "7"})
+    int k;
+
+    bignums.BigInteger a, odd;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        a = Numbers.toBignums(Numbers.random(digits, rng));
+        odd = a.setBit(0);
+    }
+
+    @Benchmark
+    public bignums.BigInteger nthRoot() {
+        return a.nthRoot(k);
+    }
+
+    @Benchmark
+    public boolean isPerfectPower() {
+        return odd.isPerfectPower();
+    }
+}
@@ -0,0 +1,24 @@
+package bignums.benchmark;
+
+import java.util.Random;
+
+/**
+ * Creates the operands for the benchmarks.  Every benchmark uses the same
+ * values for <code>bignums.BigInteger</code> and <code>java.math.BigInteger</code>.
+ */
+final class Numbers {
+    private static final double BITS_PER_DIGIT = Math.log(10) / Math.log(2);
+
+    private Numbers() {
+    }
+
+    /** Returns a random positive number with the given number of decimal digits, give or take one. */
+    static java.math.BigInteger random(int digits, Random rng) {
+        int bitLength = Math.max(1, (int)(digits*BITS_PER_DIGIT));
+        return new java.math.BigInteger(bitLength, rng).setBit(bitLength-1);
+    }
+
+    static bignums.BigInteger toBignums(java.math.BigInteger x) {
+        return new bignums.BigInteger(x.toByteArray());
+    }
+}
@@ -0,0 +1,60 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * <code>pow</code>, producing a result with the given number of digits, and
+ * <code>modPow</code> with base, exponent and odd modulus of the given number of
+ * digits.  modPow is cubic in the number of digits, so the default sizes end at
+ * 10<sup>4</sup> digits; use <code>-p digits=...</code> to go further.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PowBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    int digits;
+
+    bignums.BigInteger base, modBase, exponent, modulus;
+    java.math.BigInteger jbase, jmodBase, jexponent, jmodulus;
+    int powExponent;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        jbase = Numbers.random(10, rng);
+        powExponent = Math.max(1, digits/10);
+        jmodBase = Numbers.random(digits, rng);
+        jexponent = Numbers.random(digits, rng);
+        jmodulus = Numbers.random(digits, rng).setBit(0);
+        base = Numbers.toBignums(jbase);
+        modBase = Numbers.toBignums(jmodBase);
+        exponent = Numbers.toBignums(jexponent);
+        modulus = Numbers.toBignums(jmodulus);
+    }
+
+    @Benchmark
+    public bignums.BigInteger pow() {
+        return base.pow(powExponent);
+    }
+
+    @Benchmark
+    public java.math.BigInteger powJava() {
+        return jbase.pow(powExponent);
+    }
+
+    @Benchmark
+    public bignums.BigInteger modPow() {
+        return modBase.modPow(exponent, modulus);
+    }
+
+    @Benchmark
+    public java.math.BigInteger modPowJava() {
+        return jmodBase.modPow(jexponent, jmodulus);
+    }
+}
@@ -0,0 +1,48 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Product of <code>count</code> random 20-digit numbers, with the product tree, its parallel
+ * version and a loop of multiplications.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductBenchmark {
+    @Param({"100", "1000", "10000"})
+    int count;
+
+    bignums.BigInteger[] values;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(count);
+        values = new bignums.BigInteger[count];
+        for (int i=0; i<count; i++)
+            values[i] = Numbers.toBignums(Numbers.random(20, rng));
+    }
+
+    @Benchmark
+    public bignums.BigInteger product() {
+        return bignums.BigInteger.product(values, 0, count);
+    }
+
+    @Benchmark
+    public bignums.BigInteger parallelProduct() {
+        return bignums.BigInteger.parallelProduct(values, 0, count);
+    }
+
+    @Benchmark
+    public bignums.BigInteger productLoop() {
+        bignums.BigInteger product = bignums.BigInteger.ONE;
+        for (bignums.BigInteger value : values)
+            product = product.multiply(value);
+        return product;
+    }
+}
@@ -0,0 +1,50 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Residues of a number with a given number of digits modulo <code>count</code> random
+ * 20-digit moduli, with a prebuilt remainder tree and with a loop of <code>mod</code> calls.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RemainderTreeBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    int digits;
+
+    @Param({"100", "1000"})
+    int count;
+
+    bignums.BigInteger a;
+    bignums.BigInteger[] moduli;
+    bignums.RemainderTree tree;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        a = Numbers.toBignums(Numbers.random(digits, rng));
+        moduli = new bignums.BigInteger[count];
+        for (int i=0; i<count; i++)
+            moduli[i] = Numbers.toBignums(Numbers.random(20, rng));
+        tree = new bignums.RemainderTree(moduli);
+    }
+
+    @Benchmark
+    public bignums.BigInteger[] remainderTree() {
+        return tree.mod(a);
+    }
+
+    @Benchmark
+    public bignums.BigInteger[] modLoop() {
+        bignums.BigInteger[] residues = new bignums.BigInteger[count];
+        for (int i=0; i<count; i++)
+            residues[i] = a.mod(moduli[i]);
+        return residues;
+    }
+}
@@ -0,0 +1,50 @@
+package bignums.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Integer square root and perfect square test of a number with a given number of digits.
+ * <code>isPerfectSquare</code> is measured on a random number, which is almost always
+ * rejected by the residue filters, and on a square, which needs a full square root.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqrtBenchmark {
+    @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+    int digits;
+
+    bignums.BigInteger a, square;
+
+    @Setup
+    public void setUp() {
+        Random rng = new Random(digits);
+        a = Numbers.toBignums(Numbers.random(digits, rng));
+        square = a.sqrt().square();
+    }
+
+    @Benchmark
+    public bignums.BigInteger sqrt() {
+        return a.sqrt();
+    }
+
+    @Benchmark
+    public bignums.BigInteger[] sqrtAndRemainder() {
+        return a.sqrtAndRemainder();
+    }
+
+    @Benchmark
+    public boolean isPerfectSquare() {
+        return a.isPerfectSquare();
+    }
+
+    @Benchmark
+    public boolean isPerfectSquareOfSquare() {
+        return square.isPerfectSquare();
+    }
+}
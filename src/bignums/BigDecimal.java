@@ -3109,8 +3109,12 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
     public float floatValue(){
         if (scale == 0 && intCompact != INFLATED)
                 return (float)intCompact;
-        // Somewhat inefficient, but guaranteed to work.
-        return Float.parseFloat(this.toString());
+        // If the unscaled value and the power of ten are exact floats,
+        // one correctly rounded operation gives the correctly rounded result.
+        if (intCompact != INFLATED && Math.abs(intCompact) < 1L<<24 &&
+            scale > -FLOAT_10_POW.length && scale < FLOAT_10_POW.length)
+            return scale > 0 ? intCompact / FLOAT_10_POW[scale] : intCompact * FLOAT_10_POW[-scale];
+        return (float)toBinary(true);
     }
 
     /**
@@ -3132,10 +3136,58 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
     public double doubleValue(){
         if (scale == 0 && intCompact != INFLATED)
             return (double)intCompact;
-        // Somewhat inefficient, but guaranteed to work.
-        return Double.parseDouble(this.toString());
+        // If the unscaled value and the power of ten are exact doubles,
+        // one correctly rounded operation gives the correctly rounded result.
+        if (intCompact != INFLATED && Math.abs(intCompact) < 1L<<53 &&
+            scale > -DOUBLE_10_POW.length && scale < DOUBLE_10_POW.length)
+            return scale > 0 ? intCompact / DOUBLE_10_POW[scale] : intCompact * DOUBLE_10_POW[-scale];
+        return toBinary(false);
+    }
+
+    /**
+     * Converts this {@code BigDecimal} to the nearest {@code double}, or
+     * to the nearest {@code float} if {@code toFloat} is true, without
+     * going through a decimal string.  Integers are converted from their
+     * leading bits; other values by one division of the unscaled value by
+     * a power of ten.
+     */
+    private double toBinary(boolean toFloat) {
+        int signum = signum();
+        if (signum == 0)
+            return 0.0;
+        BigInteger unscaled = inflate().abs();
+        // more than this many decimal digits overflow, fewer underflow
+        long maxDigits = toFloat ? 40 : 310;
+        long minDigits = toFloat ? -46 : -325;
+        long digits = (long)(unscaled.bitLength() * LOG10_2) + 1 - scale;
+
+        double result;
+        if (digits > maxDigits)
+            result = Double.POSITIVE_INFINITY;
+        else if (digits < minDigits)
+            result = 0.0;
+        else if (scale <= 0) {
+            BigInteger value = unscaled.multiply(bigTenToThe(-scale));
+            result = toFloat ? value.floatValue() : value.doubleValue();
+        }
+        else
+            result = BigInteger.divideToBinary(unscaled, bigTenToThe(scale), toFloat);
+        return signum > 0 ? result : -result;
     }
 
+    private static final double LOG10_2 = Math.log10(2);
+
+    /** Powers of ten that are exactly representable as floats. */
+    private static final float FLOAT_10_POW[] = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    /** Powers of ten that are exactly representable as doubles. */
+    private static final double DOUBLE_10_POW[] = {
+        1e0,  1e1,  1e2,  1e3,  1e4,  1e5,  1e6,  1e7,  1e8,  1e9,  1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
     /**
      * Returns the size of an ulp, a unit in the last place, of this
      * {@code BigDecimal}.  An ulp of a nonzero {@code BigDecimal}
@@ -3364,51 +3416,9 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         if (n < 0)
             return BigInteger.ZERO;
 
-        if (n < BIG_TEN_POWERS_TABLE_MAX) {
-            BigInteger[] pows = BIG_TEN_POWERS_TABLE;
-            if (n < pows.length)
-                return pows[n];
-            else
-                return expandBigIntegerTenPowers(n);
-        }
-        // BigInteger.pow is slow, so make 10**n by constructing a
-        // BigInteger from a character string (still not very fast)
-        char tenpow[] = new char[n + 1];
-        tenpow[0] = '1';
-        for (int i = 1; i <= n; i++)
-            tenpow[i] = '0';
-        return new BigInteger(new String(tenpow));
-    }
-
-    /**
-     * Expand the BIG_TEN_POWERS_TABLE array to contain at least 10**n.
-     *
-     * @param n the power of ten to be returned (>=0)
-     * @return a {@code BigDecimal} with the value (10<sup>n</sup>) and
-     *         in the meantime, the BIG_TEN_POWERS_TABLE array gets
-     *         expanded to the size greater than n.
-     */
-    private static BigInteger expandBigIntegerTenPowers(int n) {
-        synchronized(BigDecimal.class) {
-            BigInteger[] pows = BIG_TEN_POWERS_TABLE;
-            int curLen = pows.length;
-            // The following comparison and the above synchronized statement is
-            // to prevent multiple threads from expanding the same array.
-            if (curLen <= n) {
-                int newLen = curLen << 1;
-                while (newLen <= n)
-                    newLen <<= 1;
-                pows = Arrays.copyOf(pows, newLen);
-                for (int i = curLen; i < newLen; i++)
-                    pows[i] = pows[i - 1].multiply(BigInteger.TEN);
-                // Based on the following facts:
-                // 1. pows is a private local varible;
-                // 2. the following store is a volatile store.
-                // the newly created array elements can be safely published.
-                BIG_TEN_POWERS_TABLE = pows;
-            }
-            return pows[n];
-        }
+        if (n < BIG_TEN_POWERS_TABLE.length)
+            return BIG_TEN_POWERS_TABLE[n];
+        return RadixPowerCache.pow(10, n);
     }
 
     private static final long[] LONG_TEN_POWERS_TABLE = {
@@ -3433,7 +3443,7 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         1000000000000000000L   // 18 / 10^18
     };
 
-    private static volatile BigInteger BIG_TEN_POWERS_TABLE[] = {BigInteger.ONE,
+    private static final BigInteger BIG_TEN_POWERS_TABLE[] = {BigInteger.ONE,
         BigInteger.valueOf(10),       BigInteger.valueOf(100),
         BigInteger.valueOf(1000),     BigInteger.valueOf(10000),
         BigInteger.valueOf(100000),   BigInteger.valueOf(1000000),
@@ -3450,11 +3460,6 @@ public class BigDecimal extends Number implements Comparable<BigDecimal> {
         BigInteger.valueOf(1000000000000000000L)
     };
 
-    private static final int BIG_TEN_POWERS_TABLE_INITLEN =
-        BIG_TEN_POWERS_TABLE.length;
-    private static final int BIG_TEN_POWERS_TABLE_MAX =
-        16 * BIG_TEN_POWERS_TABLE_INITLEN;
-
     private static final long THRESHOLDS_TABLE[] = {
         Long.MAX_VALUE,                     // 0
         Long.MAX_VALUE/10L,                 // 1
@@ -30,8 +30,15 @@
 package bignums;
 
 import java.io.*;
+import java.nio.CharBuffer;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Immutable arbitrary-precision integers.  All operations behave as if
@@ -181,8 +188,14 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * of ints in both mag arrays are greater than this number, then
      * Karatsuba multiplication will be used.   This value is found
      * experimentally to work well.
+     *
+     * <p>This and the other algorithm thresholds below can be overridden with
+     * a properties file; see {@link #loadThresholds()}.  They are not final so
+     * that {@link ThresholdCalibrator} and the tests can change them, but they
+     * are read without synchronization: changing them while other threads do
+     * arithmetic may give those threads a mix of old and new values.
      */
-    private static final int KARATSUBA_THRESHOLD = 50;
+    static int KARATSUBA_THRESHOLD = 50;
 
     /**
      * The threshold value for using 3-way Toom-Cook multiplication.
@@ -190,7 +203,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * then Toom-Cook multiplication will be used.   This value is found
      * experimentally to work well.
      */
-    private static final int TOOM_COOK_THRESHOLD = 75;
+    static int TOOM_COOK_THRESHOLD = 75;
 
     /**
      * The threshold value for using Karatsuba squaring.  If the number
@@ -198,7 +211,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * Karatsuba squaring will be used.   This value is found
      * experimentally to work well.
      */
-    private static final int KARATSUBA_SQUARE_THRESHOLD = 90;
+    static int KARATSUBA_SQUARE_THRESHOLD = 90;
 
     /**
      * The threshold value for using Toom-Cook squaring.  If the number
@@ -206,7 +219,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * Toom-Cook squaring will be used.   This value is found
      * experimentally to work well.
      */
-    private static final int TOOM_COOK_SQUARE_THRESHOLD = 140;
+    static int TOOM_COOK_SQUARE_THRESHOLD = 140;
 
     /**
      * The threshold value for using Burnikel-Ziegler division.  If the number
@@ -214,13 +227,234 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * Burnikel-Ziegler division will be used.   This value is found
      * experimentally to work well.
      */
-    private static final int BURNIKEL_ZIEGLER_THRESHOLD = 50;
+    static int BURNIKEL_ZIEGLER_THRESHOLD = 50;
 
     /**
      * The threshold value, in bits, for using Newton iteration when
      * computing the reciprocal of a number.
      */
-    private static final int NEWTON_THRESHOLD = 100;
+    static int NEWTON_THRESHOLD = 100;
+
+    /**
+     * The threshold value for using Schönhage's recursive base conversion in
+     * {@link #toString(int)}.  If the number of ints in the number are at
+     * least this value, the number is split into halves by dividing by a
+     * power of the radix.
+     */
+    static int SCHÖNHAGE_BASE_CONVERSION_THRESHOLD = 20;
+
+    /**
+     * The threshold value for parsing Strings recursively.  If a String has
+     * enough digits for at least this many ints, it is split into halves
+     * that are parsed separately and combined by multiplying with a power
+     * of the radix.
+     */
+    static int SCHÖNHAGE_BASE_PARSE_THRESHOLD = 20;
+
+    /**
+     * The threshold value for using Montgomery reduction built on
+     * {@link #multiply(BigInteger)} in {@link #modPow(BigInteger, BigInteger)}.
+     * If the number of ints in an odd modulus is at least this value, the
+     * products and reductions use the fast multiplication algorithms instead
+     * of quadratic word-by-word loops.
+     */
+    static int MONTGOMERY_THRESHOLD = 400;
+
+    /**
+     * The threshold value for using the recursive half-GCD algorithm in
+     * {@link #gcd(BigInteger)}.  If the number of ints in both numbers are at
+     * least this value, {@link HalfGcd} is used, otherwise Lehmer's algorithm.
+     * Lehmer's algorithm runs in place and the half-GCD algorithm spends its time
+     * in multiplications, so the crossover is high.
+     */
+    static int HALF_GCD_THRESHOLD = 16384;
+
+    /**
+     * The bit lengths at which multiplication switches between Toom-Cook and
+     * Schönhage-Strassen, in ascending order.  Toom-Cook is used below the
+     * first value, Schönhage-Strassen from the first value up to the second,
+     * Toom-Cook again up to the third, and so on.  The default values were
+     * determined experimentally on a 32-bit JVM.
+     * @see #shouldMultiplySchönhageStrassen(int)
+     */
+    static int[] SCHÖNHAGE_STRASSEN_CROSSOVERS = {247000, 262144, 422000, 524288,
+                                                  701000, 1048576, 1249000};
+
+    /**
+     * The bit lengths at which squaring switches between Toom-Cook and
+     * Schönhage-Strassen, in the same format as
+     * {@link #SCHÖNHAGE_STRASSEN_CROSSOVERS}.
+     * @see #shouldSquareSchönhageStrassen(int)
+     */
+    static int[] SCHÖNHAGE_STRASSEN_SQUARE_CROSSOVERS = {128000, 131072, 223000, 262144,
+                                                         379000, 524288, 631000, 1048576, 1120000};
+
+    /**
+     * The bit lengths at which division switches between Burnikel-Ziegler and
+     * Barrett, in the same format as {@link #SCHÖNHAGE_STRASSEN_CROSSOVERS}.
+     * @see #shouldDivideBarrett(int)
+     */
+    static int[] BARRETT_CROSSOVERS = {3300000, 4100000, 5900000, 8300000,
+                                       9700000, 16000000, 19000000};
+
+    /**
+     * The name of the system property that specifies a properties file
+     * containing algorithm thresholds.
+     * @see #loadThresholds()
+     */
+    static final String THRESHOLDS_PROPERTY = "bignums.thresholds";
+
+    static {
+        loadThresholds();
+    }
+
+    /**
+     * Replaces the default algorithm thresholds with those read from a
+     * properties file, such as one written by {@link ThresholdCalibrator}.
+     * The file is given by the system property {@value #THRESHOLDS_PROPERTY};
+     * if that property is not set, the resource {@code thresholds.properties}
+     * in this package is used if it exists.  Missing or invalid entries leave
+     * the corresponding default in place, as does a file that cannot be read.
+     */
+    private static void loadThresholds() {
+        Properties props = new Properties();
+        try {
+            String path = System.getProperty(THRESHOLDS_PROPERTY);
+            InputStream in = (path != null ? new FileInputStream(path) :
+                              BigInteger.class.getResourceAsStream("thresholds.properties"));
+            if (in == null)
+                return;
+            try {
+                props.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException | SecurityException | IllegalArgumentException e) {
+            return;
+        }
+        setThresholds(props);
+    }
+
+    /**
+     * Sets the algorithm thresholds from the entries in {@code props}.  The
+     * keys are those written by {@link #getThresholds()}.  This must not be
+     * called while other threads use BigInteger, since there is no
+     * happens-before edge between the writes here and their reads of the
+     * thresholds.  The values loaded at class initialization are safely
+     * published to all threads.
+     */
+    static void setThresholds(Properties props) {
+        KARATSUBA_THRESHOLD = threshold(props, "karatsuba", KARATSUBA_THRESHOLD);
+        TOOM_COOK_THRESHOLD = threshold(props, "toomcook", TOOM_COOK_THRESHOLD);
+        KARATSUBA_SQUARE_THRESHOLD = threshold(props, "karatsuba.square", KARATSUBA_SQUARE_THRESHOLD);
+        TOOM_COOK_SQUARE_THRESHOLD = threshold(props, "toomcook.square", TOOM_COOK_SQUARE_THRESHOLD);
+        BURNIKEL_ZIEGLER_THRESHOLD = threshold(props, "burnikelziegler", BURNIKEL_ZIEGLER_THRESHOLD);
+        NEWTON_THRESHOLD = threshold(props, "newton", NEWTON_THRESHOLD);
+        SCHÖNHAGE_BASE_CONVERSION_THRESHOLD = threshold(props, "baseconversion", SCHÖNHAGE_BASE_CONVERSION_THRESHOLD);
+        SCHÖNHAGE_BASE_PARSE_THRESHOLD = threshold(props, "baseparse", SCHÖNHAGE_BASE_PARSE_THRESHOLD);
+        MONTGOMERY_THRESHOLD = threshold(props, "montgomery", MONTGOMERY_THRESHOLD);
+        HALF_GCD_THRESHOLD = threshold(props, "halfgcd", HALF_GCD_THRESHOLD);
+        SCHÖNHAGE_STRASSEN_CROSSOVERS = crossovers(props, "schoenhagestrassen", SCHÖNHAGE_STRASSEN_CROSSOVERS);
+        SCHÖNHAGE_STRASSEN_SQUARE_CROSSOVERS = crossovers(props, "schoenhagestrassen.square", SCHÖNHAGE_STRASSEN_SQUARE_CROSSOVERS);
+        BARRETT_CROSSOVERS = crossovers(props, "barrett", BARRETT_CROSSOVERS);
+    }
+
+    /**
+     * Returns the current algorithm thresholds in the format read by
+     * {@link #setThresholds(Properties)}.
+     */
+    static Properties getThresholds() {
+        Properties props = new Properties();
+        props.setProperty("karatsuba", Integer.toString(KARATSUBA_THRESHOLD));
+        props.setProperty("toomcook", Integer.toString(TOOM_COOK_THRESHOLD));
+        props.setProperty("karatsuba.square", Integer.toString(KARATSUBA_SQUARE_THRESHOLD));
+        props.setProperty("toomcook.square", Integer.toString(TOOM_COOK_SQUARE_THRESHOLD));
+        props.setProperty("burnikelziegler", Integer.toString(BURNIKEL_ZIEGLER_THRESHOLD));
+        props.setProperty("newton", Integer.toString(NEWTON_THRESHOLD));
+        props.setProperty("baseconversion", Integer.toString(SCHÖNHAGE_BASE_CONVERSION_THRESHOLD));
+        props.setProperty("baseparse", Integer.toString(SCHÖNHAGE_BASE_PARSE_THRESHOLD));
+        props.setProperty("montgomery", Integer.toString(MONTGOMERY_THRESHOLD));
+        props.setProperty("halfgcd", Integer.toString(HALF_GCD_THRESHOLD));
+        props.setProperty("schoenhagestrassen", crossoversToString(SCHÖNHAGE_STRASSEN_CROSSOVERS));
+        props.setProperty("schoenhagestrassen.square", crossoversToString(SCHÖNHAGE_STRASSEN_SQUARE_CROSSOVERS));
+        props.setProperty("barrett", crossoversToString(BARRETT_CROSSOVERS));
+        return props;
+    }
+
+    /**
+     * Parses a single threshold.  Values below 4 would make the recursive
+     * algorithms recurse forever on tiny inputs, so they are rejected.
+     */
+    private static int threshold(Properties props, String key, int defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null)
+            return defaultValue;
+        try {
+            int threshold = Integer.parseInt(value.trim());
+            return threshold < 4 ? defaultValue : threshold;
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Parses a comma-separated list of crossover points, which must be
+     * non-negative and strictly ascending.
+     */
+    private static int[] crossovers(Properties props, String key, int[] defaultValue) {
+        String value = props.getProperty(key);
+        if (value == null)
+            return defaultValue;
+        value = value.trim();
+        if (value.isEmpty())
+            return new int[0];
+        String[] tokens = value.split(",");
+        int[] crossovers = new int[tokens.length];
+        try {
+            for (int i=0; i<tokens.length; i++) {
+                crossovers[i] = Integer.parseInt(tokens[i].trim());
+                if (crossovers[i]<0 || (i>0 && crossovers[i]<=crossovers[i-1]))
+                    return defaultValue;
+            }
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+        return crossovers;
+    }
+
+    private static String crossoversToString(int[] crossovers) {
+        StringBuilder buf = new StringBuilder();
+        for (int i=0; i<crossovers.length; i++) {
+            if (i > 0)
+                buf.append(',');
+            buf.append(crossovers[i]);
+        }
+        return buf.toString();
+    }
+
+    /**
+     * The pool on which the DFT, IDFT and pointwise products of
+     * Schönhage-Strassen multiplication and squaring are executed, or
+     * {@code null} if Schönhage-Strassen runs single-threaded.
+     * @see #setSchönhageStrassenParallelism(ForkJoinPool, int)
+     */
+    private static volatile ForkJoinPool schönhageStrassenPool;
+
+    /**
+     * The minimum length in bits of the larger factor for which
+     * Schönhage-Strassen multiplication is executed on
+     * {@link #schönhageStrassenPool}.  Below this size the cost of
+     * splitting the work into tasks outweighs the gain.
+     */
+    private static volatile int schönhageStrassenParallelThreshold = 4194304;   // 2^22
+
+    /**
+     * The threshold value for computing the sub-products of Karatsuba and
+     * Toom-Cook multiplication in parallel in {@link #parallelMultiply}, or
+     * zero to derive it from {@link #TOOM_COOK_THRESHOLD}.
+     * @see #parallelMultiplyThreshold()
+     */
+    private static volatile int parallelMultiplyThreshold;
 
     //Constructors
 
@@ -377,6 +611,10 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         // never be too small. Typically exact.
         int numBits = (int)(((numDigits * bitsPerDigit[radix]) >>> 10) + 1);
         int numWords = (numBits + 31) >>> 5;
+        if (numWords >= SCHÖNHAGE_BASE_PARSE_THRESHOLD) {
+            mag = parse(val, cursor, len, radix).mag;
+            return;
+        }
         int[] magnitude = new int[numWords];
 
         // Process first (potentially short) digit group
@@ -429,6 +667,10 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
             int numBits = (int)(((numDigits * bitsPerDigit[10]) >>> 10) + 1);
             numWords = (numBits + 31) >>> 5;
         }
+        if (numWords >= SCHÖNHAGE_BASE_PARSE_THRESHOLD) {
+            mag = parse(CharBuffer.wrap(val), cursor, len, 10).mag;
+            return;
+        }
         int[] magnitude = new int[numWords];
 
         // Process first (potentially short) digit group
@@ -445,6 +687,52 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         mag = trustedStripLeadingZeroInts(magnitude);
     }
 
+    /**
+     * Parses the digits {@code val[from..to)} in the given radix by splitting
+     * off the lowest 2^k digits, where 2^k is at least half the number of
+     * digits, and computing {@code high*radix^(2^k) + low} from the parsed
+     * parts.  This is the inverse of the recursive conversion in
+     * {@link #toString(int)} and takes O(M(n) log n) time rather than the
+     * O(n^2) of adding one digit group at a time.
+     * @param val the digits; signs and leading zeros must have been removed
+     * @param from the index of the first digit
+     * @param to the index after the last digit
+     * @param radix the radix, which must be valid
+     * @return the non-negative value of the digits
+     * @throws NumberFormatException if {@code val} contains an illegal digit
+     */
+    private static BigInteger parse(CharSequence val, int from, int to, int radix) {
+        int numDigits = to - from;
+        if (numDigits < SCHÖNHAGE_BASE_PARSE_THRESHOLD*digitsPerInt[radix]) {
+            int numBits = (int)(((numDigits * bitsPerDigit[radix]) >>> 10) + 1);
+            int[] magnitude = new int[(numBits + 31) >>> 5];
+
+            // The first group may be short; multiplying zero by intRadix does no harm.
+            int cursor = from;
+            int groupLen = numDigits % digitsPerInt[radix];
+            if (groupLen == 0)
+                groupLen = digitsPerInt[radix];
+            while (cursor < to) {
+                int groupVal = 0;
+                for (int end=cursor+groupLen; cursor<end; cursor++) {
+                    int digit = Character.digit(val.charAt(cursor), radix);
+                    if (digit < 0)
+                        throw new NumberFormatException("Illegal digit");
+                    groupVal = radix*groupVal + digit;
+                }
+                destructiveMulAdd(magnitude, intRadix[radix], groupVal);
+                groupLen = digitsPerInt[radix];
+            }
+            return new BigInteger(trustedStripLeadingZeroInts(magnitude), 1);
+        }
+
+        int k = 31 - Integer.numberOfLeadingZeros(numDigits-1);
+        int mid = to - (1<<k);
+        BigInteger high = parse(val, from, mid, radix);
+        BigInteger low = parse(val, mid, to, radix);
+        return high.multiply(RadixPowerCache.squarePow(radix, k)).add(low);
+    }
+
     // Create an integer with the digits between the two indexes
     // Assumes start < end. The result may be negative, but it
     // is to be treated as an unsigned value.
@@ -1352,12 +1640,293 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * @return {@code this * val}
      */
     public BigInteger multiply(BigInteger val) {
+        return multiply(val, false);
+    }
+
+    /**
+     * Returns a BigInteger whose value is {@code (this * val)}.  When both
+     * numbers are large, the independent sub-products of Karatsuba and
+     * Toom-Cook multiplication are computed in parallel, and so are the
+     * transforms and pointwise products of Schönhage-Strassen multiplication
+     * past its crossover.  Tasks are forked
+     * into the current {@code ForkJoinPool}, or into the
+     * {@linkplain ForkJoinPool#commonPool() common pool} if this method is
+     * called from outside a pool.  The result is the same as that of
+     * {@link #multiply(BigInteger)}.
+     *
+     * @param  val value to be multiplied by this BigInteger.
+     * @return {@code this * val}
+     * @see #setParallelMultiplyThreshold(int)
+     */
+    public BigInteger parallelMultiply(BigInteger val) {
+        return multiply(val, true);
+    }
+
+    /**
+     * Sets the minimum size, in ints, of the pieces whose products are
+     * computed as separate tasks by {@link #parallelMultiply}.  By default
+     * this is four times the Toom-Cook threshold, so a forked product is
+     * large enough to be split by Toom-Cook itself.  Numbers past the
+     * Schönhage-Strassen crossover are always multiplied in parallel.
+     *
+     * @param  numInts the new threshold, or zero to restore the default.
+     * @throws IllegalArgumentException {@code numInts} is negative.
+     */
+    public static void setParallelMultiplyThreshold(int numInts) {
+        if (numInts < 0)
+            throw new IllegalArgumentException("Threshold negative");
+        parallelMultiplyThreshold = numInts;
+    }
+
+    /**
+     * Returns the size, in ints, from which the pieces of Karatsuba and
+     * Toom-Cook multiplication are multiplied as separate tasks by
+     * {@link #parallelMultiply}.
+     */
+    private static int parallelMultiplyThreshold() {
+        int threshold = parallelMultiplyThreshold;
+        return threshold > 0 ? threshold : 4*TOOM_COOK_THRESHOLD;
+    }
+
+    /**
+     * Returns the pool that {@link #parallelMultiply} runs on: the pool of
+     * the current thread, or the common pool if called from outside a pool.
+     */
+    private static ForkJoinPool currentPool() {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        return pool != null ? pool : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Returns the product of the numbers in {@code values}, or one if
+     * {@code values} is empty.
+     *
+     * @param  values the numbers to multiply.
+     * @return the product of {@code values}
+     * @see #product(BigInteger[], int, int)
+     */
+    public static BigInteger product(Collection<BigInteger> values) {
+        BigInteger[] array = values.toArray(new BigInteger[0]);
+        return product(array, 0, array.length, false);
+    }
+
+    /**
+     * Returns the product of {@code values[from]} through
+     * {@code values[to-1]}, or one if the range is empty.
+     * <p>
+     * Multiplying the numbers one after another is quadratic in the number
+     * of values because one factor is always small.  Instead, the values are
+     * multiplied in a tree whose subtrees have about the same total bit
+     * length, so the factors of every multiplication are of similar size and
+     * large ones use the Karatsuba, Toom-Cook and Schönhage-Strassen
+     * algorithms.  Because the split follows the bit lengths rather than the
+     * number of values, a few large values among many small ones do not
+     * unbalance the tree.
+     *
+     * @param  values the numbers to multiply.
+     * @param  from the index of the first value, inclusive.
+     * @param  to the index of the last value, exclusive.
+     * @return the product of {@code values[from..to-1]}
+     * @throws IndexOutOfBoundsException if {@code from < 0},
+     *         {@code to > values.length} or {@code from > to}.
+     */
+    public static BigInteger product(BigInteger[] values, int from, int to) {
+        return product(values, from, to, false);
+    }
+
+    /**
+     * Returns the product of the numbers in {@code values}, or one if
+     * {@code values} is empty, evaluating independent subtrees in parallel.
+     * The result is the same as that of {@link #product(Collection)}.
+     *
+     * @param  values the numbers to multiply.
+     * @return the product of {@code values}
+     * @see #parallelProduct(BigInteger[], int, int)
+     */
+    public static BigInteger parallelProduct(Collection<BigInteger> values) {
+        BigInteger[] array = values.toArray(new BigInteger[0]);
+        return product(array, 0, array.length, true);
+    }
+
+    /**
+     * Returns the product of {@code values[from]} through
+     * {@code values[to-1]}, or one if the range is empty.  Subtrees whose
+     * values are large enough are multiplied as separate tasks, and the
+     * multiplications themselves use {@link #parallelMultiply}.  Tasks are
+     * forked into the current {@code ForkJoinPool}, or into the
+     * {@linkplain ForkJoinPool#commonPool() common pool} if this method is
+     * called from outside a pool.  The result is the same as that of
+     * {@link #product(BigInteger[], int, int)}.
+     *
+     * @param  values the numbers to multiply.
+     * @param  from the index of the first value, inclusive.
+     * @param  to the index of the last value, exclusive.
+     * @return the product of {@code values[from..to-1]}
+     * @throws IndexOutOfBoundsException if {@code from < 0},
+     *         {@code to > values.length} or {@code from > to}.
+     * @see #setParallelMultiplyThreshold(int)
+     */
+    public static BigInteger parallelProduct(BigInteger[] values, int from, int to) {
+        return product(values, from, to, true);
+    }
+
+    private static BigInteger product(BigInteger[] values, int from, int to, boolean parallel) {
+        if (from<0 || to>values.length || from>to)
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + values.length);
+
+        // ends[i] is the total bit length of the first i values
+        long[] ends = new long[to-from+1];
+        for (int i=from; i<to; i++) {
+            if (values[i].signum == 0)
+                return ZERO;
+            ends[i-from+1] = ends[i-from] + values[i].bitLength();
+        }
+        if (parallel)
+            return new ProductTask(values, from, ends, 0, to-from).invoke();
+        return productTree(values, from, ends, 0, to-from, false);
+    }
+
+    /**
+     * Multiplies {@code values[offset+lo..offset+hi-1]}.  The range is split
+     * where half of its total bit length is reached.  Ranges that are too
+     * small for Karatsuba multiplication are multiplied one after another.
+     */
+    private static BigInteger productTree(BigInteger[] values, int offset, long[] ends, int lo, int hi, boolean parallel) {
+        if (ends[hi]-ends[lo] < 32L*KARATSUBA_THRESHOLD || hi-lo<=2) {
+            BigInteger product = ONE;
+            for (int i=lo; i<hi; i++)
+                product = product.multiply(values[offset+i], parallel);
+            return product;
+        }
+
+        long half = (ends[lo]+ends[hi]) >>> 1;
+        int mid = Arrays.binarySearch(ends, lo+1, hi, half);
+        if (mid < 0) {
+            mid = -mid - 1;
+            if (half-ends[mid-1] < ends[mid]-half)
+                mid--;
+        }
+        mid = Math.max(lo+1, Math.min(hi-1, mid));
+
+        if (parallel && ends[hi]-ends[lo] >= 32L*parallelMultiplyThreshold()) {
+            ProductTask low = new ProductTask(values, offset, ends, lo, mid);
+            low.fork();
+            BigInteger high = productTree(values, offset, ends, mid, hi, true);
+            return low.join().multiply(high, true);
+        }
+        return productTree(values, offset, ends, lo, mid, parallel).multiply(productTree(values, offset, ends, mid, hi, parallel), parallel);
+    }
+
+    /**
+     * Computes a subtree of {@link #parallelProduct} as a {@code ForkJoinTask}.
+     */
+    private static class ProductTask extends RecursiveTask<BigInteger> {
+        private static final long serialVersionUID = 1L;
+        private final BigInteger[] values;
+        private final long[] ends;
+        private final int offset, lo, hi;
+
+        ProductTask(BigInteger[] values, int offset, long[] ends, int lo, int hi) {
+            this.values = values;
+            this.offset = offset;
+            this.ends = ends;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected BigInteger compute() {
+            return productTree(values, offset, ends, lo, hi, true);
+        }
+    }
+
+    /**
+     * Returns a BigInteger whose value is {@code (this * val + addend)}.
+     * Unless both factors are large enough for Karatsuba multiplication, the
+     * product is accumulated directly into the array that holds the result,
+     * so no intermediate product is created.  This makes Horner-style loops
+     * such as {@code y = y.multiplyAdd(x, c[i])} cheaper than
+     * {@code y = y.multiply(x).add(c[i])}.
+     *
+     * @param  val value to be multiplied by this BigInteger.
+     * @param  addend value to be added to the product.
+     * @return {@code this * val + addend}
+     */
+    public BigInteger multiplyAdd(BigInteger val, BigInteger addend) {
+        int productSign = signum * val.signum;
+        if (productSign == 0)
+            return addend;
+        if (addend.signum == 0)
+            return multiply(val);
+
+        int[] x = mag;
+        int[] y = val.mag;
+        if (x.length < y.length) {
+            int[] tmp = x;
+            x = y;
+            y = tmp;
+        }
+        int xlen = x.length;
+        int ylen = y.length;
+        if (ylen >= KARATSUBA_THRESHOLD)
+            return multiply(val).add(addend);
+
+        int[] c = addend.mag;
+        int clen = c.length;
+        if (addend.signum == productSign) {
+            // Size the result from the bit lengths; partial sums never exceed the result.
+            int resultBits = Math.max(bitLength(x, xlen)+bitLength(y, ylen), bitLength(c, clen)) + 1;
+            int[] z = new int[(resultBits+31) >>> 5];
+            System.arraycopy(c, 0, z, z.length-clen, clen);
+            addProduct(z, x, xlen, y, ylen);
+            return new BigInteger(trustedStripLeadingZeroInts(z), productSign);
+        }
+        else {
+            // Compute the product in place, then subtract the addend from it or vice versa
+            int[] z = new int[Math.max(xlen+ylen, clen)];
+            addProduct(z, x, xlen, y, ylen);
+            MutableBigInteger result = new MutableBigInteger(z);
+            result.normalize();
+            int cmp = result.subtractMagnitude(c, 0, clen);
+            return result.toBigInteger(cmp * productSign);
+        }
+    }
+
+    /**
+     * Adds the product of x[0..xlen) and y[0..ylen) to the number in z,
+     * one row of the long multiplication at a time.  The sum must fit in z.
+     */
+    private static void addProduct(int[] z, int[] x, int xlen, int[] y, int ylen) {
+        for (int i=0; i<ylen; i++) {
+            int carry = mulAdd(z, x, i, xlen, y[ylen-1-i]);
+            for (int k=z.length-1-i-xlen; carry!=0; k--) {
+                long sum = (z[k] & LONG_MASK) + (carry & LONG_MASK);
+                z[k] = (int)sum;
+                carry = (int)(sum >>> 32);
+            }
+        }
+    }
+
+    /**
+     * Returns a BigInteger whose value is {@code (this * val)}, forking
+     * the sub-products of Karatsuba and Toom-Cook multiplication and running
+     * Schönhage-Strassen on {@link #currentPool()} if {@code parallel} is true.
+     */
+    private BigInteger multiply(BigInteger val, boolean parallel) {
         if (val.signum == 0 || signum == 0)
             return ZERO;
 
        int xlen = mag.length;
        int ylen = val.mag.length;
 
+       // Squaring is faster, but has no parallel version.  Comparing the
+       // contents costs a pass over both numbers, which only pays off where
+       // squaring uses a faster algorithm than multiplying.
+       if (!parallel && (mag == val.mag ||
+               (xlen == ylen && xlen >= KARATSUBA_SQUARE_THRESHOLD && Arrays.equals(mag, val.mag)))) {
+           BigInteger result = square();
+           return signum == val.signum ? result : result.negate();
+       }
+
        if ((xlen < KARATSUBA_THRESHOLD) || (ylen < KARATSUBA_THRESHOLD))
        {
            int resultSign = signum == val.signum ? 1 : -1;
@@ -1374,12 +1943,34 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
        }
        else
            if ((xlen < TOOM_COOK_THRESHOLD) && (ylen < TOOM_COOK_THRESHOLD))
-               return multiplyKaratsuba(this, val);
+               return multiplyKaratsuba(this, val, parallel);
            else
                if (!shouldMultiplySchönhageStrassen(xlen*32) || !shouldMultiplySchönhageStrassen(ylen*32))
-                   return multiplyToomCook3(this, val);
+                   return multiplyToomCook3(this, val, parallel);
                else
-                   return multiplySchönhageStrassen(this, val);
+                   if (parallel)
+                       return multiplySchönhageStrassen(this, val, currentPool());
+                   else
+                       return multiplySchönhageStrassen(this, val);
+    }
+
+    /**
+     * Computes the product of two BigIntegers as a {@code ForkJoinTask}.
+     * Used by {@link #parallelMultiply} to run the sub-products of
+     * Karatsuba and Toom-Cook multiplication concurrently.
+     */
+    private static class MultiplyTask extends RecursiveTask<BigInteger> {
+        private static final long serialVersionUID = 1L;
+        private final BigInteger a, b;
+
+        MultiplyTask(BigInteger a, BigInteger b) {
+            this.a = a;
+            this.b = b;
+        }
+
+        protected BigInteger compute() {
+            return a.multiply(b, true);
+        }
     }
 
     private static BigInteger multiplyByInt(int[] x, int y, int sign) {
@@ -1450,7 +2041,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * Multiplies int arrays x and y to the specified lengths and places
      * the result into z. There will be no leading zeros in the resultant array.
      */
-    private int[] multiplyToLen(int[] x, int xlen, int[] y, int ylen, int[] z) {
+    private static int[] multiplyToLen(int[] x, int xlen, int[] y, int ylen, int[] z) {
         int xstart = xlen - 1;
         int ystart = ylen - 1;
 
@@ -1493,9 +2084,12 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * both numbers are larger than a certain threshold (found
      * experimentally).
      *
+     * The three products are independent of each other; if {@code parallel}
+     * is true and the halves are large enough, two of them are forked.
+     *
      * See:  http://en.wikipedia.org/wiki/Karatsuba_algorithm
      */
-    private static BigInteger multiplyKaratsuba(BigInteger x, BigInteger y)
+    private static BigInteger multiplyKaratsuba(BigInteger x, BigInteger y, boolean parallel)
     {
         int xlen = x.mag.length;
         int ylen = y.mag.length;
@@ -1510,11 +2104,23 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         BigInteger yl = y.getLower(half);
         BigInteger yh = y.getUpper(half);
 
-        BigInteger p1 = xh.multiply(yh);  // p1 = xh*yh
-        BigInteger p2 = xl.multiply(yl);  // p2 = xl*yl
+        BigInteger p1, p2, p3;
+        if (parallel && half >= parallelMultiplyThreshold()) {
+            MultiplyTask t1 = new MultiplyTask(xh, yh);
+            MultiplyTask t2 = new MultiplyTask(xl, yl);
+            t1.fork();
+            t2.fork();
+            p3 = xh.add(xl).multiply(yh.add(yl), true);
+            p2 = t2.join();
+            p1 = t1.join();
+        }
+        else {
+            p1 = xh.multiply(yh, parallel);  // p1 = xh*yh
+            p2 = xl.multiply(yl, parallel);  // p2 = xl*yl
 
-        // p3=(xh+xl)*(yh+yl)
-        BigInteger p3 = xh.add(xl).multiply(yh.add(yl));
+            // p3=(xh+xl)*(yh+yl)
+            p3 = xh.add(xl).multiply(yh.add(yl), parallel);
+        }
 
         // result = p1 * 2^(32*2*half) + (p3 - p1 - p2) * 2^(32*half) + p2
         BigInteger result = p1.shiftLeft(32*half).add(p3.subtract(p1).subtract(p2)).shiftLeft(32*half).add(p2);
@@ -1552,8 +2158,10 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * In C.Carlet and B.Sunar, Eds., "WAIFI'07 proceedings", p. 116-133,
      * LNCS #4547. Springer, Madrid, Spain, June 21-22, 2007.
      *
+     * If {@code parallel} is true and the slices are large enough, the
+     * five products are computed concurrently.
      */
-    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b)
+    private static BigInteger multiplyToomCook3(BigInteger a, BigInteger b, boolean parallel)
     {
         int alen = a.mag.length;
         int blen = b.mag.length;
@@ -1578,16 +2186,38 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
 
         BigInteger v0, v1, v2, vm1, vinf, t1, t2, tm1, da1, db1;
 
-        v0 = a0.multiply(b0);
-        da1 = a2.add(a0);
-        db1 = b2.add(b0);
-        vm1 = da1.subtract(a1).multiply(db1.subtract(b1));
-        da1 = da1.add(a1);
-        db1 = db1.add(b1);
-        v1 = da1.multiply(db1);
-        v2 = da1.add(a2).shiftLeft(1).subtract(a0).multiply(
-             db1.add(b2).shiftLeft(1).subtract(b0));
-        vinf = a2.multiply(b2);
+        if (parallel && k >= parallelMultiplyThreshold()) {
+            da1 = a2.add(a0);
+            db1 = b2.add(b0);
+            MultiplyTask tm1Task = new MultiplyTask(da1.subtract(a1), db1.subtract(b1));
+            da1 = da1.add(a1);
+            db1 = db1.add(b1);
+            MultiplyTask t1Task = new MultiplyTask(da1, db1);
+            MultiplyTask t2Task = new MultiplyTask(da1.add(a2).shiftLeft(1).subtract(a0),
+                                                   db1.add(b2).shiftLeft(1).subtract(b0));
+            MultiplyTask tinfTask = new MultiplyTask(a2, b2);
+            tm1Task.fork();
+            t1Task.fork();
+            t2Task.fork();
+            tinfTask.fork();
+            v0 = a0.multiply(b0, true);
+            vinf = tinfTask.join();
+            v2 = t2Task.join();
+            v1 = t1Task.join();
+            vm1 = tm1Task.join();
+        }
+        else {
+            v0 = a0.multiply(b0, parallel);
+            da1 = a2.add(a0);
+            db1 = b2.add(b0);
+            vm1 = da1.subtract(a1).multiply(db1.subtract(b1), parallel);
+            da1 = da1.add(a1);
+            db1 = db1.add(b1);
+            v1 = da1.multiply(db1, parallel);
+            v2 = da1.add(a2).shiftLeft(1).subtract(a0).multiply(
+                 db1.add(b2).shiftLeft(1).subtract(b0), parallel);
+            vinf = a2.multiply(b2, parallel);
+        }
 
         /* The algorithm requires two divisions by 2 and one by 3.
            All divisions are known to be exact, that is, they do not produce
@@ -1715,7 +2345,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         int len = mag.length;
 
         if (len <= n)
-            return this;
+            return abs();
 
         int lowerInts[] = new int[n];
         System.arraycopy(mag, len-n, lowerInts, 0, n);
@@ -1752,6 +2382,15 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * @return a <code>BigInteger</code> equal to <code>a.multiply(b)</code>
      */
     public BigInteger multiplySchönhageStrassen(BigInteger a, BigInteger b) {
+        return multiplySchönhageStrassen(a, b, parallelPoolFor(Math.max(a.bitLength(), b.bitLength())));
+    }
+
+    /**
+     * Multiplies two {@link BigInteger}s using the Schönhage-Strassen algorithm,
+     * running the DFTs and pointwise products on <code>pool</code>.
+     * @param pool the pool to run on, or <code>null</code> to run single-threaded
+     */
+    private BigInteger multiplySchönhageStrassen(BigInteger a, BigInteger b, ForkJoinPool pool) {
         // remove any minus signs, multiply, then fix sign
         int signum = a.signum() * b.signum();
         if (a.signum() < 0)
@@ -1763,7 +2402,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         int[] aIntArr = reverse(a.mag);
         int[] bIntArr = reverse(b.mag);
 
-        int[] cIntArr = multiplySchönhageStrassen(aIntArr, a.bitLength(), bIntArr, b.bitLength());
+        int[] cIntArr = multiplySchönhageStrassen(aIntArr, a.bitLength(), bIntArr, b.bitLength(), pool);
 
         BigInteger c = new BigInteger(1, reverse(cIntArr));
         if (signum < 0)
@@ -1787,7 +2426,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         else
             aIntArr = reverse(negate().mag);
 
-        int[] cIntArr = squareSchönhageStrassen(aIntArr, bitLength());
+        int[] cIntArr = squareSchönhageStrassen(aIntArr, bitLength(), parallelPoolFor(bitLength()));
         BigInteger c = new BigInteger(1, reverse(cIntArr));
 
         return c;
@@ -1836,9 +2475,10 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * @param aBitLen
      * @param b
      * @param bBitLen
+     * @param pool the pool to run the DFTs and pointwise products on, or <code>null</code>
      * @return a*b
      */
-    private int[] multiplySchönhageStrassen(int[] a, int aBitLen, int[] b, int bBitLen) {
+    private int[] multiplySchönhageStrassen(int[] a, int aBitLen, int[] b, int bBitLen, ForkJoinPool pool) {
         // set M to the number of binary digits in a or b, whichever is greater
         int M = Math.max(aBitLen, bBitLen);
 
@@ -1883,17 +2523,21 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
             subModPow2(zi[i], gammai[i+3*halfNumPcs], n+2);
 
         // zr mod Fn
-        int[][] ai = splitInts(a, halfNumPcs, pieceSize, 1<<(n+1-5));
-        int[][] bi = splitInts(b, halfNumPcs, pieceSize, 1<<(n+1-5));
-        dft(ai, m, n);
-        dft(bi, m, n);
-        modFn(ai);
-        modFn(bi);
-        int[][] c = new int[halfNumPcs][];
-        for (int i=0; i<c.length; i++)
-            c[i] = multModFn(ai[i], bi[i]);
-        idft(c, m, n);
-        modFn(c);
+        final int[][] ai = splitInts(a, halfNumPcs, pieceSize, 1<<(n+1-5));
+        final int[][] bi = splitInts(b, halfNumPcs, pieceSize, 1<<(n+1-5));
+        dft(ai, m, n, pool);
+        dft(bi, m, n, pool);
+        modFn(ai, pool);
+        modFn(bi, pool);
+        final int[][] c = new int[halfNumPcs][];
+        forEachIndex(pool, c.length, new IndexRange() {
+            public void run(int from, int to) {
+                for (int i=from; i<to; i++)
+                    c[i] = multModFn(ai[i], bi[i]);
+            }
+        });
+        idft(c, m, n, pool);
+        modFn(c, pool);
 
         int[] z = new int[1<<(m+1-5)];
         // calculate zr mod Fm from zr mod Fn and zr mod 2^(n+2), then add to z
@@ -1919,10 +2563,11 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * array, i.e. in base 2^32.
      * @param a
      * @param aBitLen
+     * @param pool the pool to run the DFTs and pointwise products on, or <code>null</code>
      * @return a<sup>2</sup>
-     * @see #multiplySchönhageStrassen(int[], int, int[], int)
+     * @see #multiplySchönhageStrassen(int[], int, int[], int, ForkJoinPool)
      */
-    private int[] squareSchönhageStrassen(int[] a, int aBitLen) {
+    private int[] squareSchönhageStrassen(int[] a, int aBitLen, ForkJoinPool pool) {
         // set M to the number of binary digits in a
         int M = aBitLen;
 
@@ -1960,14 +2605,18 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
             subModPow2(zi[i], gammai[i+3*halfNumPcs], n+2);
 
         // zr mod Fn
-        int[][] ai = splitInts(a, halfNumPcs, pieceSize, 1<<(n+1-5));
-        dft(ai, m, n);
-        modFn(ai);
-        int[][] c = new int[halfNumPcs][];
-        for (int i=0; i<c.length; i++)
-            c[i] = squareModFn(ai[i]);
-        idft(c, m, n);
-        modFn(c);
+        final int[][] ai = splitInts(a, halfNumPcs, pieceSize, 1<<(n+1-5));
+        dft(ai, m, n, pool);
+        modFn(ai, pool);
+        final int[][] c = new int[halfNumPcs][];
+        forEachIndex(pool, c.length, new IndexRange() {
+            public void run(int from, int to) {
+                for (int i=from; i<to; i++)
+                    c[i] = squareModFn(ai[i]);
+            }
+        });
+        idft(c, m, n, pool);
+        modFn(c, pool);
 
         int[] z = new int[1<<(m+1-5)];
         // calculate zr mod Fm from zr mod Fn and zr mod 2^(n+2), then add to z
@@ -2021,25 +2670,10 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * @return <code>true</code> if SS is more efficient, <code>false</code> if Toom-Cook is more efficient
      */
     private boolean shouldMultiplySchönhageStrassen(int bitLength) {
-        // The following values were determined experimentally on a 32-bit JVM.
-        // SS is slower than Toom-Cook below ~247,000 bits (~74000 decimal digits)
-        // and faster above ~1249000 bits (~376000 decimal digits).
+        // With the default values, SS is slower than Toom-Cook below ~247,000 bits
+        // (~74000 decimal digits) and faster above ~1249000 bits (~376000 decimal digits).
         // Between those values, it changes several times.
-        if (bitLength < 247000)
-            return false;
-        if (bitLength < 262144)   // 2^18
-            return true;
-        if (bitLength < 422000)
-            return false;
-        if (bitLength < 524288)   // 2^19
-            return true;
-        if (bitLength < 701000)
-            return false;
-        if (bitLength < 1048576)   // 2^20
-            return true;
-        if (bitLength < 1249000)
-            return false;
-        return true;
+        return isPastCrossover(SCHÖNHAGE_STRASSEN_CROSSOVERS, bitLength);
     }
 
     /**
@@ -2050,25 +2684,22 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * @see #shouldMultiplySchönhageStrassen(int)
      */
     private boolean shouldSquareSchönhageStrassen(int bitLength) {
-        if (bitLength < 128000)
-            return false;
-        if (bitLength < 131072)   // 2^17
-            return true;
-        if (bitLength < 223000)
-            return false;
-        if (bitLength < 262144)   // 2^18
-            return true;
-        if (bitLength < 379000)
-            return false;
-        if (bitLength < 524288)   // 2^19
-            return true;
-        if (bitLength < 631000)
-            return false;
-        if (bitLength < 1048576)   // 2^20
-            return true;
-        if (bitLength < 1120000)
-            return false;
-        return true;
+        return isPastCrossover(SCHÖNHAGE_STRASSEN_SQUARE_CROSSOVERS, bitLength);
+    }
+
+    /**
+     * Looks up a bit length in a list of crossover points such as
+     * {@link #SCHÖNHAGE_STRASSEN_CROSSOVERS}.
+     * @param crossovers ascending bit lengths at which the faster algorithm changes
+     * @param bitLength the number of bits in the input
+     * @return <code>true</code> if an odd number of crossover points are less than or
+     *         equal to <code>bitLength</code>, i.e. the asymptotically faster algorithm should be used
+     */
+    private static boolean isPastCrossover(int[] crossovers, int bitLength) {
+        int i = 0;
+        while (i<crossovers.length && bitLength>=crossovers[i])
+            i++;
+        return i%2 != 0;
     }
 
     /**
@@ -2078,34 +2709,47 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * <code>A</code> is assumed to be the lower half of the full array and the upper half is assumed to be all zeros.
      * The number of subarrays in <code>A</code> must be 2^n if m is even and 2^(n+1) if m is odd.<br/>
      * Each subarray must be ceil(2^(n-1)) bits in length.<br/>
-     * n must be equal to m/2-1.
+     * n must be equal to m/2-1.<br/>
+     * The butterflies within one layer are independent of each other, so if <code>pool</code>
+     * is not <code>null</code>, each layer is split across the pool.
      * @param A
      * @param m
      * @param n
+     * @param pool the pool to run on, or <code>null</code> to run in the calling thread
      */
-    private void dft(int[][] A, int m, int n) {
-        boolean even = m%2 == 0;
+    private void dft(final int[][] A, int m, final int n, ForkJoinPool pool) {
+        final boolean even = m%2 == 0;
         int len = A.length;
-        int v = 1;
-
-        for (int slen=len/2; slen>0; slen/=2) {   // slen = #consecutive coefficients for which the sign (add/sub) and x are constant
-            for (int j=0; j<len; j+=2*slen) {
-                int idx = j;
-                int x = getDftExponent(n, v, idx+len, even);
-
-                for (int k=slen-1; k>=0; k--) {
-                    int[] d = cyclicShiftLeftBits(A[idx+slen], x);
-                    //int[] c = A[idx].clone();
-                    System.arraycopy(A[idx], 0, A[idx+slen], 0, A[idx].length);   // copy A[idx] into A[idx+slen]
-                    addModFn(A[idx], d);
-                    //subModFn(c, d, 1<<n);
-                    //A[idx+slen] = c;
-                    subModFn(A[idx+slen], d, 1<<n);
-                    idx++;
+
+        for (int slen=len/2, v=1; slen>0; slen/=2, v++) {   // slen = #consecutive coefficients for which the sign (add/sub) and x are constant
+            final int s = slen;
+            final int layer = v;
+            forEachIndex(pool, len/2, new IndexRange() {
+                public void run(int from, int to) {
+                    dftButterflies(A, n, layer, s, even, from, to);
                 }
-            }
+            });
+        }
+    }
 
-            v++;
+    /**
+     * Performs the butterflies <code>from</code> (inclusive) through <code>to</code> (exclusive)
+     * of one DFT layer. Butterfly <code>i</code> combines <code>A[idx]</code> and
+     * <code>A[idx+slen]</code> where <code>idx</code> is the i-th index whose bit
+     * <code>slen</code> is zero.
+     * @see #dft(int[][], int, int, ForkJoinPool)
+     */
+    private void dftButterflies(int[][] A, int n, int v, int slen, boolean even, int from, int to) {
+        int len = A.length;
+        for (int i=from; i<to; i++) {
+            int j = i / slen * 2 * slen;   // first index of the block of 2*slen coefficients
+            int idx = j + i%slen;
+            int x = getDftExponent(n, v, j+len, even);
+
+            int[] d = cyclicShiftLeftBits(A[idx+slen], x);
+            System.arraycopy(A[idx], 0, A[idx+slen], 0, A[idx].length);   // copy A[idx] into A[idx+slen]
+            addModFn(A[idx], d);
+            subModFn(A[idx+slen], d, 1<<n);
         }
     }
 
@@ -2139,37 +2783,49 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * <code>A</code> is assumed to be the upper half of the full array and the upper half is assumed to be all zeros.
      * The number of subarrays in <code>A</code> must be 2^n if m is even and 2^(n+1) if m is odd.<br/>
      * Each subarray must be ceil(2^(n-1)) bits in length.<br/>
-     * n must be equal to m/2-1.
+     * n must be equal to m/2-1.<br/>
+     * As with {@link #dft(int[][], int, int, ForkJoinPool)}, each layer is split across
+     * <code>pool</code> if it is not <code>null</code>.
      * @param A
      * @param m
      * @param n
+     * @param pool the pool to run on, or <code>null</code> to run in the calling thread
      */
-    private void idft(int[][] A, int m, int n) {
-        boolean even = m%2 == 0;
+    private void idft(final int[][] A, int m, final int n, ForkJoinPool pool) {
+        final boolean even = m%2 == 0;
         int len = A.length;
-        int v = n - 1;
-        int[] c = new int[A[0].length];
-        
-        for (int slen=1; slen<=len/2; slen*=2) {   // slen = #consecutive coefficients for which the sign (add/sub) and x are constant
-            for (int j=0; j<len; j+=2*slen) {
-                int idx = j;
-                int idx2 = idx + slen;   // idx2 is always idx+slen
-                int x = getIdftExponent(n, v, idx, even);
-
-                for (int k=slen-1; k>=0; k--) {
-                    //int[] c = A[idx].clone();
-                    System.arraycopy(A[idx], 0, c, 0, c.length);   // copy A[idx] into c
-                    addModFn(A[idx], A[idx2]);
-                    A[idx] = cyclicShiftRight(A[idx], 1);
-
-                    subModFn(c, A[idx2], 1<<n);
-                    A[idx2] = cyclicShiftRight(c, x);
-                    idx++;
-                    idx2++;
+
+        for (int slen=1, v=n-1; slen<=len/2; slen*=2, v--) {   // slen = #consecutive coefficients for which the sign (add/sub) and x are constant
+            final int s = slen;
+            final int layer = v;
+            forEachIndex(pool, len/2, new IndexRange() {
+                public void run(int from, int to) {
+                    idftButterflies(A, n, layer, s, even, from, to);
                 }
-            }
+            });
+        }
+    }
 
-            v--;
+    /**
+     * Performs the butterflies <code>from</code> (inclusive) through <code>to</code> (exclusive)
+     * of one IDFT layer.
+     * @see #idft(int[][], int, int, ForkJoinPool)
+     * @see #dftButterflies(int[][], int, int, int, boolean, int, int)
+     */
+    private void idftButterflies(int[][] A, int n, int v, int slen, boolean even, int from, int to) {
+        int[] c = new int[A[0].length];
+        for (int i=from; i<to; i++) {
+            int j = i / slen * 2 * slen;   // first index of the block of 2*slen coefficients
+            int idx = j + i%slen;
+            int idx2 = idx + slen;
+            int x = getIdftExponent(n, v, j, even);
+
+            System.arraycopy(A[idx], 0, c, 0, c.length);   // copy A[idx] into c
+            addModFn(A[idx], A[idx2]);
+            A[idx] = cyclicShiftRight(A[idx], 1);
+
+            subModFn(c, A[idx2], 1<<n);
+            A[idx2] = cyclicShiftRight(c, x);
         }
     }
 
@@ -2309,10 +2965,15 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * Reduces all subarrays modulo 2^2^n+1 where n=<code>a[i].length*32/2</code> for all i;
      * in other words, n is half the number of bits in the subarray.
      * @param a int arrays whose length is a power of 2
+     * @param pool the pool to run on, or <code>null</code> to run in the calling thread
      */
-    private void modFn(int[][] a) {
-        for (int i=0; i<a.length; i++)
-            modFn(a[i]);
+    private void modFn(final int[][] a, ForkJoinPool pool) {
+        forEachIndex(pool, a.length, new IndexRange() {
+            public void run(int from, int to) {
+                for (int i=from; i<to; i++)
+                    modFn(a[i]);
+            }
+        });
     }
 
     /**
@@ -2563,14 +3224,99 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         return b;
     }
 
+    /**
+     * Enables or disables parallel Schönhage-Strassen multiplication and squaring.
+     * When enabled, the layers of the DFT and IDFT and the pointwise products are
+     * split across <code>pool</code> for all operands of at least <code>minBitLength</code>
+     * bits. The results are identical to those of the single-threaded algorithm.
+     * @param pool the pool to run on, or <code>null</code> to always run single-threaded
+     * @param minBitLength the minimum length in bits of the larger factor
+     * @throws IllegalArgumentException if <code>minBitLength</code> is negative
+     */
+    public static void setSchönhageStrassenParallelism(ForkJoinPool pool, int minBitLength) {
+        if (minBitLength < 0)
+            throw new IllegalArgumentException("minBitLength < 0");
+        schönhageStrassenParallelThreshold = minBitLength;
+        schönhageStrassenPool = pool;
+    }
+
+    /**
+     * Returns the pool on which a Schönhage-Strassen operation on numbers of the
+     * given length should be executed.
+     * @param bitLength the number of bits in the larger factor
+     * @return a pool, or <code>null</code> if the operation should run single-threaded
+     */
+    private static ForkJoinPool parallelPoolFor(int bitLength) {
+        ForkJoinPool pool = schönhageStrassenPool;
+        if (pool==null || bitLength<schönhageStrassenParallelThreshold)
+            return null;
+        return pool;
+    }
+
+    /**
+     * The body of a loop whose iterations are independent of each other.
+     * @see #forEachIndex(ForkJoinPool, int, IndexRange)
+     */
+    private interface IndexRange {
+        /** Runs iterations <code>from</code> (inclusive) through <code>to</code> (exclusive). */
+        void run(int from, int to);
+    }
+
+    /**
+     * Runs iterations <code>0</code> through <code>count-1</code> of a loop, splitting them
+     * across <code>pool</code> if it is not <code>null</code>.
+     * @param pool the pool to run on, or <code>null</code> to run in the calling thread
+     * @param count the number of iterations
+     * @param body the loop body
+     */
+    private static void forEachIndex(ForkJoinPool pool, int count, IndexRange body) {
+        if (pool==null || count<2)
+            body.run(0, count);
+        else {
+            // a few tasks per thread so the load stays balanced when piece sizes vary
+            int grain = Math.max(1, count / (4*pool.getParallelism()));
+            pool.invoke(new IndexRangeTask(body, 0, count, grain));
+        }
+    }
+
+    /**
+     * Splits an {@link IndexRange} in halves until at most <code>grain</code>
+     * iterations are left, then runs them.
+     */
+    private static class IndexRangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final IndexRange body;
+        private final int from, to, grain;
+
+        IndexRangeTask(IndexRange body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        protected void compute() {
+            if (to-from <= grain)
+                body.run(from, to);
+            else {
+                int mid = (from+to) >>> 1;
+                invokeAll(new IndexRangeTask(body, from, mid, grain), new IndexRangeTask(body, mid, to, grain));
+            }
+        }
+    }
+
     // Squaring
 
     /**
      * Returns a BigInteger whose value is {@code (this<sup>2</sup>)}.
+     * Squaring uses specialized versions of the multiplication algorithms
+     * that are about 1.5 times as fast as multiplying two different
+     * numbers of the same size.  {@link #multiply(BigInteger)} also uses
+     * them when both factors have the same magnitude.
      *
      * @return {@code this<sup>2</sup>}
      */
-    private BigInteger square() {
+    public BigInteger square() {
         if (signum == 0)
             return ZERO;
         int len = mag.length;
@@ -2786,21 +3532,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * @return <code>true</code> if Barrett is more efficient, <code>false</code> if Burnikel-Ziegler is more efficient
      */
     private boolean shouldDivideBarrett(int bitLength) {
-        if (bitLength < 3300000)
-            return false;
-        if (bitLength < 4100000)
-            return true;
-        if (bitLength < 5900000)
-            return false;
-        if (bitLength < 8300000)
-            return true;
-        if (bitLength < 9700000)
-            return false;
-        if (bitLength < 16000000)
-            return true;
-        if (bitLength < 19000000)
-            return false;
-        return true;
+        return isPastCrossover(BARRETT_CROSSOVERS, bitLength);
     }
 
     /** Long division */
@@ -3305,20 +4037,557 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
     }
 
     /**
-     * Returns a BigInteger whose value is the greatest common divisor of
-     * {@code abs(this)} and {@code abs(val)}.  Returns 0 if
-     * {@code this==0 && val==0}.
+     * Returns the integer square root of this BigInteger, that is the
+     * largest integer {@code s} such that {@code s*s <= this}.
      *
-     * @param  val value with which the GCD is to be computed.
-     * @return {@code GCD(abs(this), abs(val))}
+     * @return {@code floor(sqrt(this))}
+     * @throws ArithmeticException if {@code this} is negative.
+     * @see #sqrtAndRemainder()
      */
-    public BigInteger gcd(BigInteger val) {
-        if (val.signum == 0)
-            return this.abs();
-        else if (this.signum == 0)
-            return val.abs();
+    public BigInteger sqrt() {
+        return sqrtAndRemainder()[0];
+    }
 
-        MutableBigInteger a = new MutableBigInteger(this);
+    /**
+     * Returns an array of two BigIntegers containing the integer square
+     * root {@code s} of this BigInteger and the remainder {@code this - s*s}.
+     * <p>
+     * Values of up to 62 bits are handled with floating point arithmetic.
+     * Larger values use Paul Zimmermann's
+     * <a href="https://hal.inria.fr/inria-00072854">Karatsuba Square Root</a>,
+     * which computes the square root of the upper half recursively and
+     * obtains the next quarter of the bits with a single division, so the
+     * cost is a small multiple of that of a multiplication of the same size.
+     *
+     * @return an array of two BigIntegers with the integer square root at
+     *         offset 0 and the remainder at offset 1
+     * @throws ArithmeticException if {@code this} is negative.
+     */
+    public BigInteger[] sqrtAndRemainder() {
+        if (signum < 0)
+            throw new ArithmeticException("Negative BigInteger");
+        return sqrtRem(this);
+    }
+
+    /**
+     * Computes the square root and remainder of a nonnegative number.
+     * The number is shifted left by two bits if necessary so that it can be
+     * written as <code>a<sub>3</sub>&beta;<sup>3</sup> + a<sub>2</sub>&beta;<sup>2</sup>
+     * + a<sub>1</sub>&beta; + a<sub>0</sub></code> with <code>&beta; = 2<sup>m</sup></code>
+     * and <code>a<sub>3</sub> &ge; &beta;/4</code>, which guarantees that the
+     * quotient obtained from the root of the upper half is off by at most one.
+     */
+    private static BigInteger[] sqrtRem(BigInteger a) {
+        int bits = a.bitLength();
+        if (bits <= 62) {
+            long n = a.longValue();
+            long s = (long)Math.sqrt(n);
+            // correct the rounding error of the double square root
+            while (s*s > n)
+                s--;
+            while ((s+1)*(s+1) <= n)
+                s++;
+            return new BigInteger[] {valueOf(s), valueOf(n-s*s)};
+        }
+
+        int shift = (bits%4==1 || bits%4==2) ? 2 : 0;
+        int m = (bits+shift+3) / 4;
+        BigInteger x = a.shiftLeft(shift);
+
+        BigInteger[] upper = sqrtRem(x.shiftRight(2*m));
+        BigInteger a1 = x.shiftRight(m).mod2(m);
+        BigInteger a0 = x.mod2(m);
+        BigInteger[] qu = upper[1].shiftLeft(m).add(a1).divideAndRemainder(upper[0].shiftLeft(1));
+        BigInteger q = qu[0];
+        BigInteger s = upper[0].shiftLeft(m).add(q);
+        BigInteger r = qu[1].shiftLeft(m).add(a0).subtract(q.square());
+        if (r.signum < 0) {
+            r = r.add(s.shiftLeft(1)).subtract(ONE);
+            s = s.subtract(ONE);
+        }
+
+        // undo the normalization: if 4a = s^2 + r, then a = (s>>1)^2 + (r + (s&1)*(2s-1))/4
+        if (shift != 0) {
+            if (s.testBit(0))
+                r = r.add(s.shiftLeft(1)).subtract(ONE);
+            s = s.shiftRight(1);
+            r = r.shiftRight(2);
+        }
+        return new BigInteger[] {s, r};
+    }
+
+    /** The small moduli used by {@link #isPerfectSquare()}; each fits in a long bitmask. */
+    private static final int[] SQUARE_FILTER_MODULI = {63, 11, 17, 19, 23, 31};
+
+    /** The product of {@link #SQUARE_FILTER_MODULI}. */
+    private static final long SQUARE_FILTER_PRODUCT = 63L*11*17*19*23*31;
+
+    /** Bit {@code i} of entry {@code j} is set if {@code i} is a square modulo {@code SQUARE_FILTER_MODULI[j]}. */
+    private static final long[] SQUARE_FILTER_RESIDUES = new long[SQUARE_FILTER_MODULI.length];
+
+    static {
+        for (int j=0; j<SQUARE_FILTER_MODULI.length; j++) {
+            int m = SQUARE_FILTER_MODULI[j];
+            for (int i=0; i<m; i++)
+                SQUARE_FILTER_RESIDUES[j] |= 1L << (i*i%m);
+        }
+    }
+
+    /**
+     * Returns {@code true} if this BigInteger is the square of an integer.
+     * Most other numbers are rejected by their lowest bits or by their
+     * residues modulo a few small numbers, so for random input a square root
+     * is only computed in about one case out of a few hundred.
+     *
+     * @return {@code true} if {@code this} is a perfect square
+     */
+    public boolean isPerfectSquare() {
+        if (signum <= 0)
+            return signum == 0;
+
+        // a square is an even power of two times a number that is 1 mod 8
+        int zeros = getLowestSetBit();
+        if ((zeros&1)!=0 || testBit(zeros+1) || testBit(zeros+2))
+            return false;
+
+        long rem = modLong(SQUARE_FILTER_PRODUCT);
+        for (int j=0; j<SQUARE_FILTER_MODULI.length; j++)
+            if ((SQUARE_FILTER_RESIDUES[j]>>>(rem%SQUARE_FILTER_MODULI[j]) & 1) == 0)
+                return false;
+
+        return sqrtRem(this)[1].signum == 0;
+    }
+
+    /**
+     * Returns the integer k-th root of this BigInteger, rounded towards zero.
+     * This is the integer {@code r} of largest absolute value that has the
+     * sign of {@code this} and satisfies {@code abs(r^k) <= abs(this)}.
+     *
+     * @param  k the index of the root.
+     * @return {@code this^(1/k)}, rounded towards zero
+     * @throws ArithmeticException if {@code k} is not positive, or if
+     *         {@code this} is negative and {@code k} is even.
+     * @see #nthRootAndRemainder(int)
+     */
+    public BigInteger nthRoot(int k) {
+        return nthRootAndRemainder(k)[0];
+    }
+
+    /**
+     * Returns an array of two BigIntegers containing the integer k-th root
+     * {@code r} of this BigInteger, as returned by {@link #nthRoot(int)},
+     * and the remainder {@code this - r^k}, which has the sign of
+     * {@code this}.
+     * <p>
+     * Square roots are computed by {@link #sqrtAndRemainder()}.  Other roots
+     * use Newton's iteration with doubling precision: the root of the upper
+     * half of the bits is computed recursively, and one Newton step turns it
+     * into the root up to a small correction.  The cost is dominated by the
+     * last step, which takes a power, a multiplication and a division of
+     * numbers of the size of {@code this}.
+     *
+     * @param  k the index of the root.
+     * @return an array of two BigIntegers with the integer k-th root at
+     *         offset 0 and the remainder at offset 1
+     * @throws ArithmeticException if {@code k} is not positive, or if
+     *         {@code this} is negative and {@code k} is even.
+     */
+    public BigInteger[] nthRootAndRemainder(int k) {
+        if (k <= 0)
+            throw new ArithmeticException("Non-positive root index");
+        if (signum<0 && (k&1)==0)
+            throw new ArithmeticException("Even root of negative BigInteger");
+        if (k==1 || signum==0)
+            return new BigInteger[] {this, ZERO};
+
+        BigInteger[] result = k==2 ? sqrtRem(this) : nthRootRem(abs(), k);
+        if (signum < 0) {
+            result[0] = result[0].negate();
+            result[1] = result[1].negate();
+        }
+        return result;
+    }
+
+    /**
+     * Computes the k-th root and remainder of a positive number for
+     * {@code k >= 3}.  The starting value is never smaller than the root,
+     * so Newton's iteration decreases monotonically towards it.
+     */
+    private static BigInteger[] nthRootRem(BigInteger n, int k) {
+        int bits = n.bitLength();
+        if (k >= bits)
+            return new BigInteger[] {ONE, n.subtract(ONE)};
+
+        int rootBits = (bits-1)/k + 1;
+        BigInteger x;
+        if (rootBits <= 32)
+            x = valueOf((long)Math.exp(n.logMagnitude()/k) + 2);
+        else {
+            // An error of 2^h in the starting value leaves an error of about
+            // k*2^(2h-rootBits) after one Newton step, which is below 1/4.
+            int h = (rootBits - bitLengthForInt(k) - 2) / 2;
+            x = nthRootRem(n.shiftRight(k*h), k)[0].add(ONE).shiftLeft(h);
+        }
+
+        BigInteger kMinusOne = valueOf(k-1);
+        while (true) {
+            BigInteger power = x.pow(k-1);
+            BigInteger remainder = n.subtract(power.multiply(x));
+            if (remainder.signum >= 0)
+                return new BigInteger[] {x, remainder};
+            x = x.multiply(kMinusOne).add(n.divide(power)).divide(valueOf(k));
+        }
+    }
+
+    /** The prime used by {@link #isPerfectPower()} to check estimated roots. */
+    private static final long POWER_FILTER_PRIME = Integer.MAX_VALUE;
+
+    /**
+     * Returns {@code true} if this BigInteger is a perfect power, that is
+     * {@code r^k} for some integers {@code r} and {@code k > 1}.  Zero, one
+     * and minus one are perfect powers; other negative numbers are perfect
+     * powers if their absolute value is a power with an odd exponent.
+     * <p>
+     * Only prime exponents {@code k} need to be tried, and most are ruled
+     * out without computing a root: {@code k} has to divide the number of
+     * trailing zero bits, roots of up to 40 bits are estimated in floating
+     * point and checked modulo a prime near 2^31, and a k-th power with a
+     * larger root is a k-th power residue modulo primes {@code q = 1 mod k}.
+     * The residues for the last test are taken from this number reduced
+     * modulo the product of all the {@code q}, which is much smaller.
+     *
+     * @return {@code true} if {@code this} is a perfect power
+     */
+    public boolean isPerfectPower() {
+        if (signum==0 || (mag.length==1 && mag[0]==1))
+            return true;
+
+        BigInteger n = abs();
+        int bits = n.bitLength();
+        int zeros = n.getLowestSetBit();
+        int[] primes = BitSieve.primes(bits-1);
+        int count = 0;
+        for (int k : primes)
+            if ((zeros==0 || zeros%k==0) && (k>2 || signum>0))
+                primes[count++] = k;
+
+        // the first prime q = 1 mod k for each exponent with a large root
+        long[] moduli = new long[count];
+        BigInteger product = ONE;
+        for (int i=0; i<count && primes[i]<=bits/40; i++)
+            if (primes[i] > 2) {
+                moduli[i] = nextPrimeOneMod(primes[i], 1);
+                product = product.multiply(valueOf(moduli[i]));
+            }
+        BigInteger reduced = n.mod(product);
+
+        double log = n.logMagnitude();
+        long residue = n.modLong(POWER_FILTER_PRIME);
+        for (int i=0; i<count; i++) {
+            int k = primes[i];
+            if (k == 2) {
+                if (isPerfectSquare())
+                    return true;
+            }
+            else if (moduli[i] == 0) {
+                // the floating point estimate is off by less than 1/2
+                long r = Math.round(Math.exp(log/k));
+                if (longModPow(r%POWER_FILTER_PRIME, k, POWER_FILTER_PRIME)==residue && valueOf(r).pow(k).equals(n))
+                    return true;
+            }
+            else if (isPowerResidue(reduced.modLong(moduli[i]), k, moduli[i])) {
+                // a random number passes with probability 1/k; try two more primes before the root
+                long q = nextPrimeOneMod(k, moduli[i]+2*k);
+                if (isPowerResidue(n.modLong(q), k, q)) {
+                    q = nextPrimeOneMod(k, q+2*k);
+                    if (isPowerResidue(n.modLong(q), k, q) && nthRootRem(n, k)[1].signum==0)
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns {@code true} if r is zero or a k-th power modulo the prime q.
+     */
+    private static boolean isPowerResidue(long r, int k, long q) {
+        return r==0 || longModPow(r, (q-1)/k, q)==1;
+    }
+
+    /**
+     * Returns the smallest prime {@code q >= start} with {@code q = 1 mod 2k}.
+     */
+    private static long nextPrimeOneMod(int k, long start) {
+        long q = start + Math.floorMod(1-start, 2L*k);
+        while (!isSmallPrime(q))
+            q += 2*k;
+        return q;
+    }
+
+    /**
+     * Returns {@code b^e mod m} for {@code 0 <= b < m <= 2^31}.
+     */
+    private static long longModPow(long b, long e, long m) {
+        long result = 1;
+        while (e > 0) {
+            if ((e&1) != 0)
+                result = result*b % m;
+            b = b*b % m;
+            e >>>= 1;
+        }
+        return result % m;
+    }
+
+    /**
+     * Returns {@code true} if n is prime, using trial division.
+     */
+    private static boolean isSmallPrime(long n) {
+        if (n < 4)
+            return n > 1;
+        if ((n&1) == 0)
+            return false;
+        for (long d=3; d*d<=n; d+=2)
+            if (n%d == 0)
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns {@code abs(this) mod m} for {@code 0 < m <= 2^31}.
+     */
+    private long modLong(long m) {
+        long rem = 0;
+        for (int i=0; i<mag.length; i++)
+            rem = ((rem<<32) | (mag[i]&LONG_MASK)) % m;
+        return rem;
+    }
+
+    /**
+     * Returns an approximation of the natural logarithm of
+     * {@code abs(this)}, which must not be zero.
+     */
+    private double logMagnitude() {
+        int shift = Math.max(0, bitLength()-63);
+        return Math.log(abs().shiftRight(shift).longValue()) + shift*LOG_TWO;
+    }
+
+    /**
+     * Returns {@code n!}, the product of the integers from 1 to {@code n}.
+     * <p>
+     * This uses Peter Luschny's
+     * <a href="http://www.luschny.de/math/factorial/SwingIntro.pdf">prime
+     * swing</a> algorithm.  The odd part of {@code n!} is the square of the
+     * odd part of {@code (n/2)!} times the odd part of the swing
+     * {@code n!/((n/2)!)^2}, whose prime factorization follows directly
+     * from {@code n}.  The prime powers are multiplied in a balanced
+     * product tree so that large operands are of similar size and can
+     * use the fast multiplication algorithms, and the power of two is
+     * applied with a single shift.
+     *
+     * @param  n the number whose factorial is computed.
+     * @return {@code n!}
+     * @throws ArithmeticException if {@code n} is negative.
+     */
+    public static BigInteger factorial(int n) {
+        if (n < 0)
+            throw new ArithmeticException("Negative argument");
+        return oddFactorial(n, BitSieve.primes(n)).shiftLeft(n - Integer.bitCount(n));
+    }
+
+    /**
+     * Returns {@code n!!}, the product of the integers from 1 to {@code n}
+     * that have the same parity as {@code n}.  {@code 0!!} is 1.
+     *
+     * @param  n the number whose double factorial is computed.
+     * @return {@code n!!}
+     * @throws ArithmeticException if {@code n} is negative.
+     * @see #factorial(int)
+     */
+    public static BigInteger doubleFactorial(int n) {
+        if (n < 0)
+            throw new ArithmeticException("Negative argument");
+        if ((n&1) == 0)
+            return factorial(n/2).shiftLeft(n/2);
+
+        // (2k+1)!! is the odd part of (2k+1)!, divided by the odd part of k!
+        int[] primes = BitSieve.primes(n);
+        return oddFactorial(n/2, primes).multiply(oddSwing(n, primes));
+    }
+
+    /**
+     * Returns the odd part of {@code n!}.  {@code primes} contains at least
+     * the primes up to {@code n}.
+     */
+    private static BigInteger oddFactorial(int n, int[] primes) {
+        if (n < 21) {
+            long factorial = 1;
+            for (int i=2; i<=n; i++)
+                factorial *= i;
+            return valueOf(factorial >> Long.numberOfTrailingZeros(factorial));
+        }
+        return oddFactorial(n/2, primes).square().multiply(oddSwing(n, primes));
+    }
+
+    /**
+     * Returns the odd part of {@code n!/((n/2)!)^2}.  Each odd prime
+     * {@code p <= n} occurs in it with the exponent {@code sum((n/p^i)&1)}.
+     */
+    private static BigInteger oddSwing(int n, int[] primes) {
+        int sqrtN = (int)Math.sqrt(n);
+        int[] exponents = new int[primes.length];
+        int count = 1;
+        for (; count<primes.length && primes[count]<=n; count++) {
+            int p = primes[count];
+            if (p <= sqrtN) {
+                for (int q=n/p; q>0; q/=p)
+                    exponents[count] += q&1;
+            }
+            else
+                exponents[count] = (n/p)&1;
+        }
+        return primePowerProduct(primes, exponents, 1, count);
+    }
+
+    /**
+     * Returns the binomial coefficient {@code n!/(k!(n-k)!)}, the number
+     * of subsets of size {@code k} of a set of size {@code n}, or zero if
+     * {@code k < 0} or {@code k > n}.
+     * <p>
+     * If {@code min(k, n-k)} is small compared to {@code n}, the
+     * coefficient is computed with the multiplicative formula, dividing by
+     * one word at a time.  Otherwise it is computed by
+     * {@link #multinomial(int...)} from its prime factorization, without
+     * any large division.
+     *
+     * @param  n the size of the set.
+     * @param  k the size of the subsets.
+     * @return {@code n choose k}
+     * @throws ArithmeticException if {@code n} is negative.
+     */
+    public static BigInteger binomial(int n, int k) {
+        if (n < 0)
+            throw new ArithmeticException("Negative argument");
+        if (k<0 || k>n)
+            return ZERO;
+
+        k = Math.min(k, n-k);
+        // the multiplicative formula takes about k^2*log(n)/32 word operations, the sieve about n
+        if ((long)k*k*bitLengthForInt(n) < 64L*n) {
+            BigInteger result = ONE;
+            for (int i=1; i<=k; i++)
+                result = result.multiply(n-k+i).divide(valueOf(i));
+            return result;
+        }
+        return multinomial(k, n-k);
+    }
+
+    /**
+     * Returns the multinomial coefficient
+     * {@code (k[0]+...+k[m-1])!/(k[0]!...k[m-1]!)}, the number of ways to
+     * divide a set into subsets of the sizes {@code k[i]}.
+     * <p>
+     * By Legendre's formula, each prime {@code p} up to the sum {@code n}
+     * occurs in the coefficient with the exponent
+     * {@code sum(n/p^i - k[0]/p^i - ... - k[m-1]/p^i)}.  The primes are
+     * taken from a sieve, and the prime powers are multiplied in a balanced
+     * product tree.
+     *
+     * @param  k the sizes of the subsets.
+     * @return the multinomial coefficient
+     * @throws ArithmeticException if an element of {@code k} is negative or
+     *         the sum of {@code k} is larger than {@code Integer.MAX_VALUE}.
+     */
+    public static BigInteger multinomial(int... k) {
+        long sum = 0;
+        int max = 0;
+        for (int ki : k) {
+            if (ki < 0)
+                throw new ArithmeticException("Negative argument");
+            sum += ki;
+            max = Math.max(max, ki);
+        }
+        if (sum > Integer.MAX_VALUE)
+            throw new ArithmeticException("Sum of arguments too large");
+        int n = (int)sum;
+        if (max == n)
+            return ONE;
+
+        int[] primes = BitSieve.primes(n);
+        int[] exponents = new int[primes.length];
+        for (int i=0; i<primes.length; i++) {
+            int p = primes[i];
+            for (long q=p; q<=n; q*=p) {
+                exponents[i] += n/q;
+                if (q <= max)
+                    for (int ki : k)
+                        exponents[i] -= ki/q;
+            }
+        }
+        return primePowerProduct(primes, exponents, 1, primes.length).shiftLeft(exponents[0]);
+    }
+
+    /**
+     * Returns the product of {@code primes[i]^exponents[i]} for
+     * {@code from <= i < to}.  The prime powers are packed into longs,
+     * which are multiplied in a balanced product tree.
+     */
+    private static BigInteger primePowerProduct(int[] primes, int[] exponents, int from, int to) {
+        // every long but the last holds more than 32 bits
+        long bits = 0;
+        for (int i=from; i<to; i++)
+            bits += (long)exponents[i] * bitLengthForInt(primes[i]);
+        long[] factors = new long[(int)(bits/32) + 1];
+
+        int count = 0;
+        long factor = 1;
+        for (int i=from; i<to; i++) {
+            int p = primes[i];
+            for (int e=exponents[i]; e>0; e--) {
+                if (factor > Long.MAX_VALUE/p) {
+                    factors[count++] = factor;
+                    factor = 1;
+                }
+                factor *= p;
+            }
+        }
+        factors[count++] = factor;
+        return product(factors, 0, count);
+    }
+
+    /**
+     * Returns the product of {@code factors[from..to-1]}, computed in a
+     * balanced product tree.
+     */
+    private static BigInteger product(long[] factors, int from, int to) {
+        if (to-from <= 8) {
+            BigInteger product = valueOf(factors[from]);
+            for (int i=from+1; i<to; i++)
+                product = product.multiply(factors[i]);
+            return product;
+        }
+        int mid = (from+to) >>> 1;
+        return product(factors, from, mid).multiply(product(factors, mid, to));
+    }
+
+    /**
+     * Returns a BigInteger whose value is the greatest common divisor of
+     * {@code abs(this)} and {@code abs(val)}.  Returns 0 if
+     * {@code this==0 && val==0}.
+     *
+     * @param  val value with which the GCD is to be computed.
+     * @return {@code GCD(abs(this), abs(val))}
+     */
+    public BigInteger gcd(BigInteger val) {
+        if (val.signum == 0)
+            return this.abs();
+        else if (this.signum == 0)
+            return val.abs();
+
+        if (mag.length>=HALF_GCD_THRESHOLD && val.mag.length>=HALF_GCD_THRESHOLD)
+            return HalfGcd.gcd(abs(), val.abs());
+
+        MutableBigInteger a = new MutableBigInteger(this);
         MutableBigInteger b = new MutableBigInteger(val);
 
         MutableBigInteger result = a.hybridGCD(b);
@@ -3326,6 +4595,34 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         return result.toBigInteger(1);
     }
 
+    /**
+     * Returns the greatest common divisor {@code g} of {@code abs(this)} and
+     * {@code abs(val)} together with B&eacute;zout coefficients {@code x} and
+     * {@code y} such that {@code this*x + val*y == g}, as an array of three
+     * BigIntegers {@code {g, x, y}}.  If {@code val} is not zero, {@code x}
+     * is the smallest non-negative coefficient, that is
+     * {@code 0 <= x < abs(val)/g}; if {@code val} is zero, {@code x} is
+     * {@code signum(this)} and {@code y} is 0.<br/>
+     * The coefficients are computed with Lehmer's algorithm, and with the
+     * half-GCD algorithm for large numbers, like {@link #gcd(BigInteger)}.
+     *
+     * @param  val value with which the GCD is to be computed.
+     * @return an array of three BigIntegers: the GCD and the coefficients
+     *         of {@code this} and {@code val}.
+     */
+    public BigInteger[] gcdExtended(BigInteger val) {
+        if (val.signum == 0)
+            return new BigInteger[] {abs(), valueOf(signum), ZERO};
+
+        BigInteger absVal = val.abs();
+        BigInteger[] result = HalfGcd.gcdExtended(abs(), absVal);
+        BigInteger g = result[0];
+        BigInteger x = signum<0 ? result[1].negate() : result[1];
+        x = x.mod(absVal.divide(g));
+        BigInteger y = g.subtract(multiply(x)).divide(val);
+        return new BigInteger[] {g, x, y};
+    }
+
     /**
      * Package private method to return bit length for an integer.
      */
@@ -3390,7 +4687,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * Calculate bitlength of contents of the first len elements an int array,
      * assuming there are no leading zero ints.
      */
-    private static int bitLength(int[] val, int len) {
+    static int bitLength(int[] val, int len) {
         if (len == 0)
             return 0;
         return ((len - 1) << 5) + bitLengthForInt(val[0]);
@@ -3445,6 +4742,21 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         return (result.signum >= 0 ? result : result.add(m));
     }
 
+    /**
+     * Returns the residues of this BigInteger modulo several moduli: element
+     * {@code i} of the result is {@code this.mod(moduli[i])}.  The residues
+     * are computed with a remainder tree, which reads this number once
+     * instead of once per modulus.
+     *
+     * @param  moduli the moduli.
+     * @return the residues, in the same order.
+     * @throws ArithmeticException if a modulus is &le; 0.
+     * @see    RemainderTree
+     */
+    public BigInteger[] modAll(BigInteger[] moduli) {
+        return new RemainderTree(moduli).mod(this);
+    }
+
     /**
      * Returns a BigInteger whose value is
      * <tt>(this<sup>exponent</sup> mod m)</tt>.  (Unlike {@code pow}, this
@@ -3519,6 +4831,25 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         return (invertResult ? result.modInverse(m) : result);
     }
 
+    /**
+     * Returns a BigInteger whose value is
+     * <tt>(bases[0]<sup>exponents[0]</sup> * bases[1]<sup>exponents[1]</sup> * ... mod m)</tt>.
+     * The powers share their squarings, which makes this considerably faster than
+     * multiplying the results of separate {@code modPow} calls.
+     *
+     * @param  bases the bases.
+     * @param  exponents the exponents, one for each base.
+     * @param  m the modulus.
+     * @return the product of the powers, modulo m
+     * @throws ArithmeticException {@code m} &le; 0 or an exponent is
+     *         negative and its base is not <i>relatively prime</i> to {@code m}.
+     * @throws IllegalArgumentException the arrays differ in length.
+     * @see    ModulusContext#modPowProduct(BigInteger[], BigInteger[])
+     */
+    public static BigInteger modPowProduct(BigInteger[] bases, BigInteger[] exponents, BigInteger m) {
+        return new ModulusContext(m).modPowProduct(bases, exponents);
+    }
+
     static int[] bnExpModThreshTable = {7, 25, 81, 241, 673, 1793,
                                                 Integer.MAX_VALUE}; // Sentinel
 
@@ -3592,11 +4923,135 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         if (signum==0)
             return ZERO;
 
+        if (z.mag.length >= MONTGOMERY_THRESHOLD)
+            return oddModPowMontgomery(y, z);
+
         int[] base = mag.clone();
-        int[] exp = y.mag;
         int[] mod = z.mag;
         int modLen = mod.length;
 
+        // Compute the modular inverse
+        int inv = -MutableBigInteger.inverseMod32(mod[modLen-1]);
+
+        // Convert base to Montgomery form
+        int[] a = leftShift(base, base.length, modLen << 5);
+
+        MutableBigInteger q = new MutableBigInteger(),
+                          a2 = new MutableBigInteger(a),
+                          b2 = new MutableBigInteger(mod);
+
+        MutableBigInteger r= a2.divide(b2, q);
+        int[] montBase = r.toIntArray();
+
+        // Pad montBase with leading zeros so its length is at least modLen
+        if (montBase.length < modLen) {
+           int offset = modLen - montBase.length;
+           int[] t2 = new int[modLen];
+           for (int i=0; i<montBase.length; i++)
+               t2[i+offset] = montBase[i];
+           montBase = t2;
+        }
+
+        return fromMontgomery(montgomeryPow(montBase, y.mag, mod, inv), mod, inv);
+    }
+
+    /**
+     * Returns a BigInteger whose value is x to the power of y mod z, for
+     * large moduli.  This uses the same sliding window as
+     * {@link #oddModPow(BigInteger, BigInteger)}, but Montgomery reduction is
+     * done with two calls to {@link #multiply(BigInteger)} rather than
+     * {@link #montReduce}, so the running time of a step grows like that of a
+     * multiplication rather than quadratically.
+     * Assumes: z is odd && 0 < x < z && y > 1.
+     */
+    private BigInteger oddModPowMontgomery(BigInteger y, BigInteger z) {
+        int n = z.mag.length;
+        BigInteger zInv = z.inverseModPowerOfTwo(n);
+
+        // Select an appropriate window size
+        int wbits = 0;
+        int ebits = y.bitLength();
+        while (ebits > bnExpModThreshTable[wbits])
+            wbits++;
+
+        // Compute odd powers of the base in Montgomery form
+        BigInteger[] table = new BigInteger[1 << wbits];
+        table[0] = shiftLeft(32*n).mod(z);
+        if (wbits > 0) {
+            BigInteger square = table[0].square().montgomeryReduce(z, zInv, n);
+            for (int i=1; i<table.length; i++)
+                table[i] = table[i-1].multiply(square).montgomeryReduce(z, zInv, n);
+        }
+
+        // Walk down the exponent, multiplying once per window of up to wbits+1 bits
+        // that starts and ends with a one bit
+        BigInteger b = null;
+        int i = ebits - 1;
+        while (i >= 0) {
+            if (!y.testBit(i)) {
+                b = b.square().montgomeryReduce(z, zInv, n);
+                i--;
+                continue;
+            }
+            int low = Math.max(i-wbits, 0);
+            while (!y.testBit(low))
+                low++;
+            int window = 0;
+            for (int j=i; j>=low; j--) {
+                window = (window<<1) | (y.testBit(j) ? 1 : 0);
+                if (b != null)
+                    b = b.square().montgomeryReduce(z, zInv, n);
+            }
+            BigInteger power = table[window >>> 1];
+            b = b==null ? power : b.multiply(power).montgomeryReduce(z, zInv, n);
+            i = low - 1;
+        }
+
+        // Convert the result out of Montgomery form
+        return b.montgomeryReduce(z, zInv, n);
+    }
+
+    /**
+     * Returns <code>this/2<sup>32n</sup> mod z</code>.
+     * Assumes: z is odd && 0 &le; this &lt; z*2<sup>32n</sup>.
+     * @param z the modulus, <code>n</code> ints long
+     * @param zInv <code>z<sup>-1</sup> mod 2<sup>32n</sup></code>
+     */
+    private BigInteger montgomeryReduce(BigInteger z, BigInteger zInv, int n) {
+        BigInteger m = getLower(n).multiply(zInv).getLower(n);
+        BigInteger t = subtract(m.multiply(z)).shiftRight(32*n);   // exact
+        return t.signum < 0 ? t.add(z) : t;
+    }
+
+    /**
+     * Returns <code>this<sup>-1</sup> mod 2<sup>32n</sup></code> by Newton iteration,
+     * doubling the number of correct bits in each step.
+     * Assumes: this is odd.
+     */
+    private BigInteger inverseModPowerOfTwo(int n) {
+        BigInteger x = valueOf(MutableBigInteger.inverseMod32(mag[mag.length-1]) & LONG_MASK);
+        for (int ints=1; ints<n; ) {
+            ints = Math.min(2*ints, n);
+            // x = x*(2 - this*x) mod 2^(32*ints)
+            BigInteger t = getLower(ints).multiply(x).getLower(ints);
+            x = x.multiply(TWO.subtract(t)).mod(ONE.shiftLeft(32*ints));
+        }
+        return x;
+    }
+
+    /**
+     * Returns base to the power of exp in Montgomery form, using the sliding
+     * window algorithm described in {@link #oddModPow(BigInteger, BigInteger)}.
+     * The first <code>mod.length</code> ints of the returned array hold the result.
+     * @param base the base in Montgomery form, <code>mod.length</code> ints long
+     * @param exp the magnitude of a positive exponent
+     * @param mod an odd modulus
+     * @param inv <code>-mod<sup>-1</sup></code> modulo 2<sup>32</sup>
+     */
+    static int[] montgomeryPow(int[] base, int[] exp, int[] mod, int inv) {
+        int modLen = mod.length;
+        int[] a = null;
+
         // Select an appropriate window size
         int wbits = 0;
         int ebits = bitLength(exp, exp.length);
@@ -3612,30 +5067,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
 
         // Allocate table for precomputed odd powers of base in Montgomery form
         int[][] table = new int[tblmask][];
-        for (int i=0; i<tblmask; i++)
-            table[i] = new int[modLen];
-
-        // Compute the modular inverse
-        int inv = -MutableBigInteger.inverseMod32(mod[modLen-1]);
-
-        // Convert base to Montgomery form
-        int[] a = leftShift(base, base.length, modLen << 5);
-
-        MutableBigInteger q = new MutableBigInteger(),
-                          a2 = new MutableBigInteger(a),
-                          b2 = new MutableBigInteger(mod);
-
-        MutableBigInteger r= a2.divide(b2, q);
-        table[0] = r.toIntArray();
-
-        // Pad table[0] with leading zeros so its length is at least modLen
-        if (table[0].length < modLen) {
-           int offset = modLen - table[0].length;
-           int[] t2 = new int[modLen];
-           for (int i=0; i<table[0].length; i++)
-               t2[i+offset] = table[0][i];
-           table[0] = t2;
-        }
+        table[0] = base;
 
         // Set b to the square of the base
         int[] b = squareToLen(table[0], modLen, null);
@@ -3737,7 +5169,17 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
             }
         }
 
-        // Convert result out of Montgomery form and return
+        return b;
+    }
+
+    /**
+     * Converts a number out of Montgomery form.
+     * @param b the number in Montgomery form in its first <code>mod.length</code> ints
+     * @param mod an odd modulus
+     * @param inv <code>-mod<sup>-1</sup></code> modulo 2<sup>32</sup>
+     */
+    static BigInteger fromMontgomery(int[] b, int[] mod, int inv) {
+        int modLen = mod.length;
         int[] t2 = new int[2*modLen];
         System.arraycopy(b, 0, t2, modLen, modLen);
 
@@ -3748,6 +5190,33 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         return new BigInteger(1, t2);
     }
 
+    /**
+     * Returns <code>a*b/2<sup>32*mod.length</sup> mod mod</code>.
+     * @param a a number less than mod, <code>mod.length</code> ints long
+     * @param b a number less than mod, <code>mod.length</code> ints long
+     * @param mod an odd modulus
+     * @param inv <code>-mod<sup>-1</sup></code> modulo 2<sup>32</sup>
+     * @return a new array of <code>mod.length</code> ints
+     */
+    static int[] montgomeryMultiply(int[] a, int[] b, int[] mod, int inv) {
+        int modLen = mod.length;
+        int[] prod = multiplyToLen(a, modLen, b, modLen, null);
+        return Arrays.copyOf(montReduce(prod, mod, modLen, inv), modLen);
+    }
+
+    /**
+     * Returns <code>a<sup>2</sup>/2<sup>32*mod.length</sup> mod mod</code>.
+     * @param a a number less than mod, <code>mod.length</code> ints long
+     * @param mod an odd modulus
+     * @param inv <code>-mod<sup>-1</sup></code> modulo 2<sup>32</sup>
+     * @return a new array of <code>mod.length</code> ints
+     */
+    static int[] montgomerySquare(int[] a, int[] mod, int inv) {
+        int modLen = mod.length;
+        int[] square = squareToLen(a, modLen, null);
+        return Arrays.copyOf(montReduce(square, mod, modLen, inv), modLen);
+    }
+
     /**
      * Montgomery reduce n, modulo mod.  This reduces modulo mod and divides
      * by 2^(32*mlen). Adapted from Colin Plumb's C library.
@@ -3917,11 +5386,49 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         if (modVal.equals(ONE))
             return ONE;
 
-        MutableBigInteger a = new MutableBigInteger(modVal);
-        MutableBigInteger b = new MutableBigInteger(m);
+        BigInteger[] result = HalfGcd.gcdExtended(modVal, m);
+        if (!result[0].equals(ONE))
+            throw new ArithmeticException("BigInteger not invertible.");
+        return result[1].mod(m);
+    }
 
-        MutableBigInteger result = a.mutableModInverse(b);
-        return result.toBigInteger(1);
+    /**
+     * Returns the inverses of several numbers modulo m: element {@code i} of
+     * the result is {@code values[i].modInverse(m)}.  The inverses are
+     * computed with one inversion and {@code 3(n-1)} modular multiplications
+     * (Montgomery's trick), which is much faster than inverting the values one
+     * by one.
+     *
+     * @param  values the numbers to invert.
+     * @param  m the modulus.
+     * @return the inverses, in the same order.
+     * @throws ArithmeticException {@code m} &le; 0, or a value is not
+     *         <i>relatively prime</i> to {@code m}; the message names the
+     *         index of the first such value.
+     * @see    ModulusContext#modInverseAll(BigInteger[])
+     */
+    public static BigInteger[] modInverseAll(BigInteger[] values, BigInteger m) {
+        return new ModulusContext(m).modInverseAll(values);
+    }
+
+    /**
+     * Returns the inverses of several numbers modulo m, like
+     * {@link #modInverseAll(BigInteger[], BigInteger)}, but inverts chunks of
+     * the values in parallel.  Tasks are forked into the current
+     * {@code ForkJoinPool}, or into the
+     * {@linkplain ForkJoinPool#commonPool() common pool} if this method is
+     * called from outside a pool.
+     *
+     * @param  values the numbers to invert.
+     * @param  m the modulus.
+     * @return the inverses, in the same order.
+     * @throws ArithmeticException {@code m} &le; 0, or a value is not
+     *         <i>relatively prime</i> to {@code m}; the message names the
+     *         index of the first such value.
+     * @see    ModulusContext#parallelModInverseAll(BigInteger[])
+     */
+    public static BigInteger[] parallelModInverseAll(BigInteger[] values, BigInteger m) {
+        return new ModulusContext(m).parallelModInverseAll(values);
     }
 
     // Shift Operations
@@ -4570,6 +6077,53 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
         if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX)
             radix = 10;
 
+        if (mag.length < SCHÖNHAGE_BASE_CONVERSION_THRESHOLD)
+            return smallToString(radix);
+
+        StringBuilder buf = new StringBuilder((int)(bitLength()*LOG_TWO/Math.log(radix)) + 2);
+        if (signum < 0)
+            buf.append('-');
+        toString(abs(), buf, radix, 0);
+        return buf.toString();
+    }
+
+    /**
+     * Appends the digits of a non-negative number to {@code buf} using
+     * Schönhage's recursive base conversion.  The number is divided by
+     * radix^(2^k), where 2^k is about half its number of digits, and the
+     * quotient and remainder are converted recursively.  Since the division
+     * uses Burnikel-Ziegler or Barrett, this takes O(M(n) log n) time rather
+     * than the O(n^2) of repeated division by {@code longRadix[radix]}.
+     * @param u a non-negative number
+     * @param buf the buffer to append to
+     * @param radix the radix, which must be valid
+     * @param digits the minimum number of digits to append; {@code u} is
+     *        padded with leading zeros to this length
+     */
+    private static void toString(BigInteger u, StringBuilder buf, int radix, int digits) {
+        if (u.mag.length < SCHÖNHAGE_BASE_CONVERSION_THRESHOLD) {
+            String s = u.signum==0 ? "" : u.smallToString(radix);
+            for (int numLeadingZeros=digits-s.length(); numLeadingZeros>0; numLeadingZeros-=63)
+                buf.append(zeros[Math.min(numLeadingZeros, 63)]);
+            buf.append(s);
+            return;
+        }
+
+        int k = (int)Math.round(Math.log(u.bitLength()*LOG_TWO/Math.log(radix))/LOG_TWO - 1.0);
+        BigInteger[] qr = u.divideAndRemainder(RadixPowerCache.squarePow(radix, k));
+        int lowDigits = 1 << k;
+        toString(qr[0], buf, radix, digits-lowDigits);
+        toString(qr[1], buf, radix, lowDigits);
+    }
+
+    /** The natural logarithm of 2. */
+    private static final double LOG_TWO = Math.log(2.0);
+
+    /**
+     * Converts a number shorter than {@link #SCHÖNHAGE_BASE_CONVERSION_THRESHOLD}
+     * to a String by repeated division by {@code longRadix[radix]}.
+     */
+    private String smallToString(int radix) {
         // Compute upper bound on number of digit groups and allocate space
         int maxNumDigitGroups = (4*mag.length + 6)/7;
         String digitGroup[] = new String[maxNumDigitGroups];
@@ -4724,8 +6278,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * @return this BigInteger converted to a {@code float}.
      */
     public float floatValue() {
-        // Somewhat inefficient, but guaranteed to work.
-        return Float.parseFloat(this.toString());
+        return (float)toBinary(true);
     }
 
     /**
@@ -4744,8 +6297,113 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * @return this BigInteger converted to a {@code double}.
      */
     public double doubleValue() {
-        // Somewhat inefficient, but guaranteed to work.
-        return Double.parseDouble(this.toString());
+        return toBinary(false);
+    }
+
+    /**
+     * Converts this BigInteger to the nearest {@code double}, or to the
+     * nearest {@code float} if {@code toFloat} is true, using only the
+     * leading bits of the magnitude and whether any of the remaining bits
+     * is set.  A {@code float} result is exactly representable as the
+     * returned {@code double}.
+     */
+    private double toBinary(boolean toFloat) {
+        if (signum == 0)
+            return 0.0;
+        int bitLength = bitLength(mag, mag.length);
+        if (bitLength < 64)
+            return toFloat ? (float)longValue() : (double)longValue();
+
+        // keep three bits more than the significand and jam the rest into the lowest one
+        int shift = bitLength - (toFloat ? 24 : 53) - 3;
+        long bits = magnitudeBits(shift);
+        if (hasLowBits(shift))
+            bits |= 1;
+        double result = roundToBinary(bits, shift, toFloat);
+        return signum > 0 ? result : -result;
+    }
+
+    /**
+     * Returns the bits of the magnitude from bit {@code shift} upwards, which
+     * must fit in a long, that is, {@code floor(abs(this) / 2^shift)}.
+     */
+    private long magnitudeBits(int shift) {
+        int len = mag.length;
+        int word = shift >>> 5;
+        int bit = shift & 31;
+        long lo = (mag[len-1-word] & LONG_MASK);
+        long mid = (word+1 < len ? mag[len-2-word] & LONG_MASK : 0);
+        long hi = (word+2 < len ? mag[len-3-word] & LONG_MASK : 0);
+        if (bit == 0)
+            return lo | mid<<32;
+        return lo>>>bit | mid<<(32-bit) | hi<<(64-bit);
+    }
+
+    /** Returns true if any of the lowest {@code n} bits of the magnitude is set. */
+    private boolean hasLowBits(int n) {
+        int len = mag.length;
+        int words = n >>> 5;
+        for (int i=len-1; i>=len-words; i--)
+            if (mag[i] != 0)
+                return true;
+        int bits = n & 31;
+        return bits!=0 && (mag[len-1-words] << (32-bits)) != 0;
+    }
+
+    /**
+     * Returns {@code n/d} for positive {@code n} and {@code d} rounded to the
+     * nearest {@code double}, or to the nearest {@code float} if
+     * {@code toFloat} is true.  Only a few more bits than the significand
+     * are computed, using one division; the remainder decides the rounding.
+     * Used by {@link BigDecimal} and {@link BigRational}.
+     */
+    static double divideToBinary(BigInteger n, BigInteger d, boolean toFloat) {
+        int precision = toFloat ? 24 : 53;
+        int maxExponent = toFloat ? Float.MAX_EXPONENT : Double.MAX_EXPONENT;
+        int minExponent = toFloat ? Float.MIN_EXPONENT : Double.MIN_EXPONENT;
+
+        if (n.signum == 0)
+            return 0.0;
+
+        // n/d lies in [2^(e-1), 2^(e+1))
+        int e = n.bitLength() - d.bitLength();
+        if (e > maxExponent+1)
+            return Double.POSITIVE_INFINITY;
+        if (e < minExponent-precision-1)
+            return 0.0;
+
+        // the quotient has precision+3 or precision+4 bits
+        int k = precision + 3 - e;
+        BigInteger[] qr = k>=0 ? n.shiftLeft(k).divideAndRemainder(d) : n.divideAndRemainder(d.shiftLeft(-k));
+        long bits = qr[0].longValue() << 1;
+        if (qr[1].signum != 0)
+            bits |= 1;
+        return roundToBinary(bits, -k-1, toFloat);
+    }
+
+    /**
+     * Rounds {@code bits * 2^exponent} to the nearest {@code double} or
+     * {@code float}, ties to even.  {@code bits} must have at least two bits
+     * below the last bit of the rounded significand, and any nonzero bits
+     * that were dropped to fit it in a long must have been or'ed into its
+     * lowest bit.
+     */
+    private static double roundToBinary(long bits, int exponent, boolean toFloat) {
+        int precision = toFloat ? 24 : 53;
+        int minExponent = toFloat ? Float.MIN_EXPONENT : Double.MIN_EXPONENT;
+
+        // number of low bits to round off; more for subnormal results
+        int bitLength = 64 - Long.numberOfLeadingZeros(bits);
+        int drop = Math.max(bitLength-precision, minExponent-precision+1-exponent);
+        if (drop >= 64)
+            return 0.0;
+        long significand = bits >>> drop;
+        long rest = bits & ((1L<<drop) - 1);
+        long half = 1L << (drop-1);
+        if (rest>half || (rest==half && (significand&1)!=0))
+            significand++;
+        double result = Math.scalb((double)significand, exponent+drop);
+        return toFloat ? (float)result : result;
     }
 
     /**
@@ -4765,7 +6423,7 @@ public class BigInteger extends Number implements Comparable<BigInteger>, Serial
      * Returns the input array stripped of any leading zero bytes.
      * Since the source is trusted the copying may be skipped.
      */
-    private static int[] trustedStripLeadingZeroInts(int val[]) {
+    static int[] trustedStripLeadingZeroInts(int val[]) {
         int vlen = val.length;
         int keep;
 
@@ -0,0 +1,135 @@
+package bignums;
+
+import java.util.Arrays;
+
+/**
+ * A mutable sum of {@link BigInteger}s.<br/>
+ * Every <code>BigInteger</code> operation allocates a new magnitude array for its result, so
+ * summing many terms with <code>sum = sum.add(term)</code> creates one array per term. An
+ * accumulator keeps the sum in a buffer that is updated in place and grows geometrically, so
+ * a summation loop only allocates O(log n) arrays. Products of operands shorter than the
+ * Karatsuba threshold are accumulated without creating a temporary product either.<br/>
+ * Accumulators are not thread-safe.
+ * <pre>
+ * BigIntegerAccumulator acc = new BigIntegerAccumulator();
+ * for (int i=0; i&lt;n; i++)
+ *     acc.addProduct(a[i], b[i]);
+ * BigInteger dotProduct = acc.toBigInteger();
+ * </pre>
+ */
+public class BigIntegerAccumulator {
+    /** The magnitude of the sum. */
+    private final MutableBigInteger sum;
+
+    /** The sign of the sum; only meaningful if the sum is not zero. */
+    private int sign = 1;
+
+    /** Holds products whose sign differs from that of the sum before they are subtracted. */
+    private MutableBigInteger product;
+
+    /** Creates an accumulator whose value is zero. */
+    public BigIntegerAccumulator() {
+        sum = new MutableBigInteger();
+    }
+
+    /**
+     * Creates an accumulator with an initial value.
+     * @param val the initial value
+     */
+    public BigIntegerAccumulator(BigInteger val) {
+        sum = new MutableBigInteger(val);
+        if (val.signum < 0)
+            sign = -1;
+    }
+
+    /**
+     * Adds a number to the value of this accumulator.
+     * @param val the number to add
+     */
+    public void add(BigInteger val) {
+        add(val.mag, 0, val.mag.length, val.signum);
+    }
+
+    /**
+     * Subtracts a number from the value of this accumulator.
+     * @param val the number to subtract
+     */
+    public void subtract(BigInteger val) {
+        add(val.mag, 0, val.mag.length, -val.signum);
+    }
+
+    /**
+     * Adds the product of two numbers to the value of this accumulator.
+     * @param a the first factor
+     * @param b the second factor
+     */
+    public void addProduct(BigInteger a, BigInteger b) {
+        int productSign = a.signum * b.signum;
+        if (productSign == 0)
+            return;
+
+        int alen = a.mag.length;
+        int blen = b.mag.length;
+        if (alen>=BigInteger.KARATSUBA_THRESHOLD && blen>=BigInteger.KARATSUBA_THRESHOLD) {
+            add(a.multiply(b));
+            return;
+        }
+
+        if (sum.isZero() || productSign == sign) {
+            sign = productSign;
+            sum.addProduct(a.mag, alen, b.mag, blen);
+        }
+        else {
+            if (product == null)
+                product = new MutableBigInteger();
+            new MutableBigInteger(a.mag).multiply(new MutableBigInteger(b.mag), product);
+            add(product.value, product.offset, product.intLen, productSign);
+        }
+    }
+
+    /** Sets the value of this accumulator to zero, keeping its buffer. */
+    public void clear() {
+        sum.reset();
+        sign = 1;
+    }
+
+    /**
+     * Returns the sign of the value of this accumulator.
+     * @return -1, 0 or 1 as the value is negative, zero or positive
+     */
+    public int signum() {
+        return sum.isZero() ? 0 : sign;
+    }
+
+    /**
+     * Returns the value of this accumulator.  The accumulator can be used
+     * further; later operations do not affect the returned number.
+     * @return the current value
+     */
+    public BigInteger toBigInteger() {
+        if (sum.isZero())
+            return BigInteger.ZERO;
+        // always copy: the buffer would be shared if it has no unused ints
+        int[] mag = Arrays.copyOfRange(sum.value, sum.offset, sum.offset+sum.intLen);
+        return new BigInteger(mag, sign);
+    }
+
+    /**
+     * Returns the decimal String representation of the value of this accumulator.
+     */
+    public String toString() {
+        return toBigInteger().toString();
+    }
+
+    /** Adds the magnitude val[off..off+len) with the given sign to the sum. */
+    private void add(int[] val, int off, int len, int valSign) {
+        if (valSign == 0)
+            return;
+        if (sum.isZero() || valSign == sign) {
+            sign = valSign;
+            sum.addMagnitude(val, off, len);
+        }
+        else if (sum.subtractMagnitude(val, off, len) < 0)
+            sign = -sign;
+    }
+}
@@ -126,7 +126,10 @@ public class BigRational extends Number implements Comparable<BigRational>, Seri
   {  return multiply(divisor.reciprocal());  }
  
   public double doubleValue()
-  {  return toBigDecimal(18, RoundingMode.HALF_EVEN).doubleValue();  }
+  {
+    double value = BigInteger.divideToBinary(numerator, denominator, false);
+    return isNegative ? -value : value;
+  }
  
   public boolean equals(Object o)
   {
@@ -137,7 +140,10 @@ public class BigRational extends Number implements Comparable<BigRational>, Seri
   }
  
   public float floatValue()
-  {  return toBigDecimal(9, RoundingMode.HALF_EVEN).floatValue();  }
+  {
+    float value = (float)BigInteger.divideToBinary(numerator, denominator, true);
+    return isNegative ? -value : value;
+  }
  
   public int hashCode()
   {  return hashCode;  }
@@ -59,21 +59,22 @@ class BitSieve {
      * A small sieve used to filter out multiples of small primes in a search
      * sieve.
      */
-    private static BitSieve smallSieve = new BitSieve();
+    private static BitSieve smallSieve = new BitSieve(150 * 64);
 
     /**
-     * Construct a "small sieve" with a base of 0.  This constructor is
-     * used internally to generate the set of "small primes" whose multiples
-     * are excluded from sieves generated by the main (package private)
-     * constructor, BitSieve(BigInteger base, int searchLen).  The length
-     * of the sieve generated by this constructor was chosen for performance;
-     * it controls a tradeoff between how much time is spent constructing
-     * other sieves, and how much time is wasted testing composite candidates
-     * for primality.  The length was chosen experimentally to yield good
+     * Construct a sieve of the odd numbers below <code>2*length</code> with
+     * a base of 0, in which exactly the primes are clear.  This constructor
+     * is used internally to generate the set of "small primes" whose
+     * multiples are excluded from sieves generated by the main (package
+     * private) constructor, BitSieve(BigInteger base, int searchLen).  The
+     * length of that "small sieve" was chosen for performance; it controls
+     * a tradeoff between how much time is spent constructing other sieves,
+     * and how much time is wasted testing composite candidates for
+     * primality.  The length was chosen experimentally to yield good
      * performance.
      */
-    private BitSieve() {
-        length = 150 * 64;
+    private BitSieve(int length) {
+        this.length = length;
         bits = new long[(unitIndex(length - 1) + 1)];
 
         // Mark 1 as composite
@@ -86,7 +87,29 @@ class BitSieve {
             sieveSingle(length, nextIndex + nextPrime, nextPrime);
             nextIndex = sieveSearch(length, nextIndex + 1);
             nextPrime = 2*nextIndex + 1;
-        } while((nextIndex > 0) && (nextPrime < length));
+        } while((nextIndex > 0) && ((long)nextPrime*nextPrime < 2L*length));
+    }
+
+    /**
+     * Returns the primes that are not larger than n, in increasing order.
+     */
+    static int[] primes(int n) {
+        if (n < 2)
+            return new int[0];
+
+        BitSieve sieve = new BitSieve(n/2 + (n&1));
+        int count = 1;
+        for (int i=1; i<sieve.length; i++)
+            if (!sieve.get(i))
+                count++;
+
+        int[] primes = new int[count];
+        primes[0] = 2;
+        count = 1;
+        for (int i=1; i<sieve.length; i++)
+            if (!sieve.get(i))
+                primes[count++] = 2*i + 1;
+        return primes;
     }
 
     /**
@@ -0,0 +1,129 @@
+package bignums;
+
+/**
+ * Chinese remainder reconstruction with fixed moduli.<br/>
+ * For pairwise coprime moduli <code>m<sub>i</sub></code> with product <code>M</code>, the
+ * number <code>x</code> in <code>[0, M)</code> with <code>x = r<sub>i</sub> mod m<sub>i</sub></code>
+ * is <code>x = sum(r<sub>i</sub> c<sub>i</sub> M/m<sub>i</sub>) mod M</code>, where
+ * <code>c<sub>i</sub> = (M/m<sub>i</sub>)<sup>-1</sup> mod m<sub>i</sub></code>. A context
+ * computes the product tree of the moduli (see {@link RemainderTree}) and the
+ * <code>c<sub>i</sub></code> once. The sum is then formed up the tree: a node with children
+ * <code>L</code> and <code>R</code> gets <code>s<sub>L</sub> R + s<sub>R</sub> L</code> from the
+ * sums of its children, so a reconstruction takes <code>O(M(n) log k)</code> for <code>k</code>
+ * moduli with a product of <code>n</code> bits, instead of the <code>k</code> multiplications of
+ * size <code>n</code> of the direct formula.<br/>
+ * Contexts are immutable and can be shared between threads, which suits multi-modular
+ * algorithms that reconstruct many results with the same moduli.
+ * <pre>
+ * CrtContext crt = new CrtContext(primes);
+ * BigInteger[] residues = crt.mod(x);
+ * // ... compute with the residues ...
+ * BigInteger y = crt.reconstruct(residues);
+ * </pre>
+ */
+public final class CrtContext {
+    /** The product tree of the moduli. */
+    private final RemainderTree tree;
+
+    /** <code>(M/m<sub>i</sub>)<sup>-1</sup> mod m<sub>i</sub></code> for each modulus. */
+    private final BigInteger[] cofactorInverses;
+
+    /**
+     * Creates a context for the given moduli.
+     * @param moduli the moduli
+     * @throws ArithmeticException if a modulus is &le; 0 or the moduli are not pairwise coprime
+     */
+    public CrtContext(BigInteger[] moduli) {
+        tree = new RemainderTree(moduli);
+        BigInteger[][] levels = tree.levels;
+
+        // (M/P) mod P for every node P, from the root down to the moduli; a node that is not
+        // the only child of its parent gets its parent's value times its sibling, modulo itself
+        BigInteger[] cofactors = {BigInteger.ONE.mod(tree.getProduct())};
+        for (int l=levels.length-2; l>=0; l--) {
+            BigInteger[] level = levels[l];
+            BigInteger[] next = new BigInteger[level.length];
+            for (int i=0; i<level.length; i++) {
+                BigInteger parent = cofactors[i/2];
+                if ((i^1) >= level.length)
+                    next[i] = parent;
+                else {
+                    BigInteger m = level[i];
+                    next[i] = parent.mod(m).multiply(level[i^1].mod(m)).mod(m);
+                }
+            }
+            cofactors = next;
+        }
+
+        cofactorInverses = new BigInteger[moduli.length];
+        for (int i=0; i<moduli.length; i++) {
+            try {
+                cofactorInverses[i] = cofactors[i].modInverse(moduli[i]);
+            } catch (ArithmeticException e) {
+                throw new ArithmeticException("BigInteger: moduli not pairwise coprime");
+            }
+        }
+    }
+
+    /**
+     * Returns the moduli of this context.
+     * @return a copy of the moduli
+     */
+    public BigInteger[] getModuli() {
+        return tree.getModuli();
+    }
+
+    /**
+     * Returns the product of the moduli, which bounds the reconstructed numbers.
+     * @return the product of the moduli
+     */
+    public BigInteger getProduct() {
+        return tree.getProduct();
+    }
+
+    /**
+     * Returns the residues of a number modulo each of the moduli, using the product tree of
+     * this context.  This is the inverse of {@link #reconstruct(BigInteger[])} for numbers in
+     * <code>[0, M)</code>.
+     * @param value the number to reduce
+     * @return the residues, in the order of the moduli
+     * @see RemainderTree#mod(BigInteger)
+     */
+    public BigInteger[] mod(BigInteger value) {
+        return tree.mod(value);
+    }
+
+    /**
+     * Returns the number <code>x</code> in <code>[0, M)</code>, where <code>M</code> is the
+     * product of the moduli, with <code>x = residues[i] mod m<sub>i</sub></code> for every
+     * modulus <code>m<sub>i</sub></code>.  The residues do not need to be reduced.
+     * @param residues the residues, in the order of the moduli
+     * @return the unique solution in <code>[0, M)</code>
+     * @throws IllegalArgumentException if the number of residues differs from the number of moduli
+     */
+    public BigInteger reconstruct(BigInteger[] residues) {
+        BigInteger[][] levels = tree.levels;
+        if (residues.length != levels[0].length)
+            throw new IllegalArgumentException("residues and moduli differ in length");
+        if (residues.length == 0)
+            return BigInteger.ZERO;
+
+        BigInteger[] sums = new BigInteger[residues.length];
+        for (int i=0; i<sums.length; i++) {
+            BigInteger m = levels[0][i];
+            sums[i] = residues[i].mod(m).multiply(cofactorInverses[i]).mod(m);
+        }
+
+        // the sum for a node P is the sum of r_i c_i P/m_i over the moduli below it
+        for (int l=1; l<levels.length; l++) {
+            BigInteger[] below = levels[l-1];
+            BigInteger[] next = new BigInteger[levels[l].length];
+            for (int i=0; i<below.length/2; i++)
+                next[i] = sums[2*i].multiply(below[2*i+1]).add(sums[2*i+1].multiply(below[2*i]));
+            if (below.length%2 != 0)
+                next[next.length-1] = sums[below.length-1];
+            sums = next;
+        }
+        return sums[0].mod(tree.getProduct());
+    }
+}
@@ -0,0 +1,177 @@
+package bignums;
+
+/**
+ * Modular exponentiation with a fixed base and modulus.<br/>
+ * When the same base is raised to many different exponents, for example a group generator in
+ * signature verification or Diffie-Hellman key generation, a table of powers of the base can be
+ * computed once and used to save most of the squarings of {@link BigInteger#modPow}.  This class
+ * uses the comb method of Lim and Lee: an exponent of at most <code>t</code> bits is cut into
+ * <code>h</code> ("teeth") blocks of <code>a = ceil(t/h)</code> bits, and each block into
+ * <code>v</code> ("tables") parts of <code>b = ceil(a/v)</code> bits.  The precomputed table
+ * holds <code>v*2<sup>h</sup></code> residues, and an exponentiation takes about <code>b</code>
+ * squarings and <code>a</code> multiplications instead of the <code>t</code> squarings and
+ * <code>t/(w+1)</code> multiplications of a sliding window of width <code>w</code>.<br/>
+ * More teeth save multiplications and more tables save squarings; both cost memory, and the
+ * table takes <code>v*2<sup>h</sup>*b</code> squarings to build, so large settings only pay
+ * off over many exponentiations.<br/>
+ * Exponents longer than <code>t</code> bits are computed without the table. Instances are
+ * immutable and can be shared between threads.
+ * <pre>
+ * FixedBaseExponentiator exp = new FixedBaseExponentiator(g, p, q.bitLength());
+ * BigInteger y = exp.modPow(x);
+ * </pre>
+ */
+public final class FixedBaseExponentiator {
+    /** The default number of teeth. */
+    static final int DEFAULT_TEETH = 6;
+
+    /** The default number of tables. */
+    static final int DEFAULT_TABLES = 2;
+
+    /** The largest supported number of teeth. */
+    private static final int MAX_TEETH = 16;
+
+    /** The base, reduced modulo the modulus. */
+    private final BigInteger base;
+
+    /** The modulus and its Montgomery constants. */
+    private final ModulusContext context;
+
+    /** The number of blocks an exponent is cut into. */
+    private final int teeth;
+
+    /** The number of bits per block. */
+    private final int blockBits;
+
+    /** The number of bits per part of a block. */
+    private final int partBits;
+
+    /**
+     * <code>table[j][i]</code> is the product of <code>base<sup>2<sup>l*a + j*b</sup></sup></code>
+     * over the set bits <code>l</code> of <code>i</code>, in Montgomery form; <code>null</code>
+     * if the modulus is even or one.
+     */
+    private final int[][][] table;
+
+    /**
+     * Creates an exponentiator for exponents of up to <code>maxExponentBits</code> bits with the
+     * default number of teeth and tables.
+     * @param base the base
+     * @param m the modulus
+     * @param maxExponentBits the largest bit length of exponents that use the precomputed table
+     * @throws ArithmeticException if {@code m} &le; 0
+     */
+    public FixedBaseExponentiator(BigInteger base, BigInteger m, int maxExponentBits) {
+        this(base, m, maxExponentBits, DEFAULT_TEETH, DEFAULT_TABLES);
+    }
+
+    /**
+     * Creates an exponentiator for exponents of up to <code>maxExponentBits</code> bits.  The table
+     * holds <code>tables*2<sup>teeth</sup></code> residues.
+     * @param base the base
+     * @param m the modulus
+     * @param maxExponentBits the largest bit length of exponents that use the precomputed table
+     * @param teeth the number of blocks an exponent is cut into, between 1 and 16
+     * @param tables the number of parts each block is cut into
+     * @throws ArithmeticException if {@code m} &le; 0
+     * @throws IllegalArgumentException if <code>maxExponentBits</code> or <code>tables</code> is
+     *         not positive, or <code>teeth</code> is out of range
+     */
+    public FixedBaseExponentiator(BigInteger base, BigInteger m, int maxExponentBits, int teeth, int tables) {
+        if (maxExponentBits <= 0)
+            throw new IllegalArgumentException("maxExponentBits must be positive: " + maxExponentBits);
+        if (teeth<1 || teeth>MAX_TEETH)
+            throw new IllegalArgumentException("teeth out of range: " + teeth);
+        if (tables <= 0)
+            throw new IllegalArgumentException("tables must be positive: " + tables);
+
+        context = new ModulusContext(m);
+        this.base = context.reduce(base);
+        teeth = Math.min(teeth, maxExponentBits);
+        this.teeth = teeth;
+        blockBits = (maxExponentBits+teeth-1) / teeth;
+        tables = Math.min(tables, blockBits);
+        partBits = (blockBits+tables-1) / tables;
+        tables = (blockBits+partBits-1) / partBits;
+
+        if (!context.isMontgomery()) {
+            table = null;
+            return;
+        }
+
+        int size = 1 << teeth;
+        table = new int[tables][size][];
+
+        // the first table: base^(2^(l*a)) for single teeth, products of those for the other entries
+        int[] power = context.toMontgomery(this.base);
+        for (int l=0; l<teeth; l++) {
+            if (l > 0)
+                for (int k=0; k<blockBits; k++)
+                    power = context.montgomerySquare(power);
+            table[0][1<<l] = power;
+            for (int i=(1<<l)+1; i<(2<<l); i++)
+                table[0][i] = context.montgomeryMultiply(table[0][i-(1<<l)], power);
+        }
+
+        // every other table is the previous one raised to the power 2^b
+        for (int j=1; j<tables; j++)
+            for (int i=1; i<size; i++) {
+                power = table[j-1][i];
+                for (int k=0; k<partBits; k++)
+                    power = context.montgomerySquare(power);
+                table[j][i] = power;
+            }
+    }
+
+    /**
+     * Returns the base, reduced modulo the modulus.
+     * @return the base
+     */
+    public BigInteger getBase() {
+        return base;
+    }
+
+    /**
+     * Returns the modulus.
+     * @return the modulus
+     */
+    public BigInteger getModulus() {
+        return context.getModulus();
+    }
+
+    /**
+     * Returns <tt>(base<sup>exponent</sup> mod m)</tt>.  The result is the same as
+     * that of <code>base.modPow(exponent, m)</code>.
+     *
+     * @param  exponent the exponent.
+     * @return <tt>base<sup>exponent</sup> mod m</tt>
+     * @throws ArithmeticException the exponent is negative and the base
+     *         is not <i>relatively prime</i> to the modulus.
+     */
+    public BigInteger modPow(BigInteger exponent) {
+        if (table==null || exponent.bitLength()>teeth*blockBits)
+            return context.modPow(base, exponent);
+        if (exponent.signum < 0)
+            return modPow(exponent.negate()).modInverse(context.getModulus());
+        if (exponent.signum == 0)
+            return BigInteger.ONE;
+
+        int[] exp = exponent.mag;
+        int[] result = null;
+        for (int k=partBits-1; k>=0; k--) {
+            if (result != null)
+                result = context.montgomerySquare(result);
+            for (int j=table.length-1; j>=0; j--) {
+                int offset = j*partBits + k;
+                if (offset >= blockBits)
+                    continue;
+                int index = 0;
+                for (int l=teeth-1; l>=0; l--)
+                    index = (index<<1) | ModulusContext.bit(exp, l*blockBits + offset);
+                if (index != 0)
+                    result = result==null ? table[j][index] : context.montgomeryMultiply(result, table[j][index]);
+            }
+        }
+        return context.fromMontgomery(result);
+    }
+}
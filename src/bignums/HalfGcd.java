@@ -0,0 +1,341 @@
+package bignums;
+
+import static bignums.BigInteger.ONE;
+import static bignums.BigInteger.ZERO;
+
+/**
+ * GCD and extended GCD computation.  Large numbers are handled with the subquadratic
+ * half-GCD algorithm in the form given by Niels Möller in
+ * <a href="http://www.lysator.liu.se/~nisse/archive/S0025-5718-07-02017-0.pdf">
+ * On Schönhage's algorithm and subquadratic integer gcd computation</a>.<br/>
+ * A <i>reduction</i> of two positive numbers <code>a</code> and <code>b</code> is a
+ * matrix <code>M</code> with non-negative entries and determinant &plusmn;1 together with
+ * two numbers <code>&alpha;</code> and <code>&beta;</code> such that
+ * <code>(a, b) = M (&alpha;, &beta;)</code>, so <code>gcd(a, b) = gcd(&alpha;, &beta;)</code>.
+ * For numbers of <code>n</code> bits, {@link #reduce(BigInteger, BigInteger)} finds a
+ * reduction with <code>&alpha;, &beta; &gt; 2<sup>s</sup></code> and
+ * <code>|&alpha;-&beta;| &le; 2<sup>s</sup></code>, where <code>s = n/2+1</code>, by
+ * reducing the upper halves of the numbers recursively, so its running time is
+ * <code>O(M(n) log n)</code> where <code>M(n)</code> is the time for a multiplication.
+ * Small numbers are reduced with Lehmer's algorithm.
+ */
+final class HalfGcd {
+    private HalfGcd() {
+    }
+
+    /**
+     * Returns the GCD of two positive numbers.  The numbers are halved in size with a
+     * reduction and a division until they are shorter than
+     * {@link BigInteger#HALF_GCD_THRESHOLD}, then the GCD is finished with
+     * {@link MutableBigInteger#hybridGCD(MutableBigInteger)}.
+     */
+    static BigInteger gcd(BigInteger a, BigInteger b) {
+        while (a.mag.length>=BigInteger.HALF_GCD_THRESHOLD && b.mag.length>=BigInteger.HALF_GCD_THRESHOLD) {
+            Reduction r = reduce(a, b);
+            a = r.alpha.max(r.beta);
+            b = r.alpha.min(r.beta);
+
+            // a division step, which cannot be done within the reduction, so the next one makes progress
+            BigInteger t = a.mod(b);
+            a = b;
+            b = t;
+            if (b.signum == 0)
+                return a;
+        }
+        MutableBigInteger x = new MutableBigInteger(a);
+        MutableBigInteger y = new MutableBigInteger(b);
+        return x.hybridGCD(y).toBigInteger(1);
+    }
+
+    /**
+     * Returns the GCD <code>g</code> of two numbers <code>a &ge; 0</code> and
+     * <code>b &gt; 0</code> together with a cofactor <code>x</code> such that
+     * <code>a*x &equiv; g (mod b)</code>, as an array <code>{g, x}</code>.  Large numbers
+     * are reduced as in {@link #gcd(BigInteger, BigInteger)}, small ones with Lehmer's
+     * algorithm, and the cofactor is updated with the matrices of the steps.
+     */
+    static BigInteger[] gcdExtended(BigInteger a, BigInteger b) {
+        // u and v are the magnitudes of the cofactors of a and b: a = uSign*u*a0 and
+        // b = -uSign*v*a0 modulo b0.  The cofactors of consecutive remainders in
+        // Euclid's algorithm alternate in sign, so one sign is enough.
+        BigInteger u = ONE;
+        BigInteger v = ZERO;
+        int uSign = 1;
+        while (a.mag.length>=BigInteger.HALF_GCD_THRESHOLD && b.mag.length>=BigInteger.HALF_GCD_THRESHOLD) {
+            // alpha = det*(m11*a - m01*b), beta = det*(m00*b - m10*a)
+            Reduction r = reduce(a, b);
+            BigInteger newU = r.m11.multiply(u).add(r.m01.multiply(v));
+            BigInteger newV = r.m00.multiply(v).add(r.m10.multiply(u));
+            uSign *= r.det;
+            a = r.alpha;
+            b = r.beta;
+            u = newU;
+            v = newV;
+            if (a.compareTo(b) < 0) {
+                BigInteger t = a; a = b; b = t;
+                t = u; u = v; v = t;
+                uSign = -uSign;
+            }
+
+            BigInteger[] qr = a.divideAndRemainder(b);
+            BigInteger t = u.add(qr[0].multiply(v));
+            a = b;
+            b = qr[1];
+            u = v;
+            v = t;
+            uSign = -uSign;
+            if (b.signum == 0)
+                return new BigInteger[] {a, uSign>0 ? u : u.negate()};
+        }
+
+        MutableBigInteger x = new MutableBigInteger(a);
+        MutableBigInteger y = new MutableBigInteger(b);
+        MutableBigInteger mu = new MutableBigInteger(u);
+        MutableBigInteger mv = new MutableBigInteger(v);
+        MutableBigInteger q = new MutableBigInteger();
+        MutableBigInteger t = new MutableBigInteger();
+        long[] L = new long[4];
+        while (y.intLen != 0) {
+            if (Math.abs(x.intLen - y.intLen) < 2 && x.intLen != 0) {
+                if (x.compare(y) < 0) {
+                    MutableBigInteger w = x; x = y; y = w;
+                    w = mu; mu = mv; mv = w;
+                    uSign = -uSign;
+                }
+                // The cofactors are kept below 2^30 so that their sums of products fit in a long.
+                // Numbers of up to 62 bits are used exactly.
+                int shift = Math.max(x.bitLength()-62, 0);
+                if (MutableBigInteger.lehmerMatrix(x.leadingBits(shift), y.leadingBits(shift), 1<<30, Long.MIN_VALUE, L) > 0) {
+                    MutableBigInteger.combine(x, y, L[0], L[1], L[2], L[3]);
+                    MutableBigInteger.combine(mu, mv, Math.abs(L[0]), Math.abs(L[1]), Math.abs(L[2]), Math.abs(L[3]));
+                    uSign *= L[0]!=0 ? Long.signum(L[0]) : -Long.signum(L[1]);
+                    continue;
+                }
+            }
+
+            // x = q*y + r, u = u + q*v, then swap
+            MutableBigInteger r = x.divide(y, q);
+            if (!q.isZero()) {
+                q.multiply(mv, t);
+                t.add(mu);
+                MutableBigInteger w = mu; mu = t; t = w;
+            }
+            MutableBigInteger w = mu; mu = mv; mv = w;
+            x = y;
+            y = r;
+            uSign = -uSign;
+        }
+        BigInteger cofactor = mu.toBigInteger(1);
+        return new BigInteger[] {x.toBigInteger(1), uSign>0 ? cofactor : cofactor.negate()};
+    }
+
+    /**
+     * Returns a reduction of two non-negative numbers with <code>&alpha;, &beta; &gt;
+     * 2<sup>s</sup></code> and <code>|&alpha;-&beta;| &le; 2<sup>s</sup></code>, where
+     * <code>s = n/2+1</code> and <code>n</code> is the bit length of the larger number.  If
+     * either number is at most 2<sup>s</sup>, the identity is returned.
+     */
+    static Reduction reduce(BigInteger a, BigInteger b) {
+        int n = Math.max(a.bitLength(), b.bitLength());
+        int s = n/2 + 1;
+        Reduction r = new Reduction(a, b);
+        if (!greaterThanPowerOfTwo(a, s) || !greaterThanPowerOfTwo(b, s))
+            return r;
+
+        if (n >= 32*BigInteger.HALF_GCD_THRESHOLD) {
+            // Reduce the upper n-s bits.  The result is above 2^s when lifted to the full numbers.
+            r = lift(reduce(a.shiftRight(s), b.shiftRight(s)), a, b, s);
+            if (!step(r, s))
+                return r;   // |alpha-beta| <= 2^s, so the reduction is complete
+
+            // Reduce the upper bits again, shifted by p so the lifted result is above 2^s.
+            int n2 = Math.max(r.alpha.bitLength(), r.beta.bitLength());
+            int p = 2*s - n2 + 1;
+            Reduction r2 = lift(reduce(r.alpha.shiftRight(p), r.beta.shiftRight(p)), r.alpha, r.beta, p);
+            r.multiply(r2);
+            r.alpha = r2.alpha;
+            r.beta = r2.beta;
+        }
+
+        // at most a few steps are left for large numbers; small numbers are reduced here entirely
+        do {
+            lehmerSteps(r, s);
+        } while (step(r, s));
+        return r;
+    }
+
+    /**
+     * Returns the reduction of two numbers <code>a</code> and <code>b</code> given by the
+     * matrix of a reduction <code>sub</code> of <code>a/2<sup>p</sup></code> and
+     * <code>b/2<sup>p</sup></code>.
+     */
+    private static Reduction lift(Reduction sub, BigInteger a, BigInteger b, int p) {
+        if (sub.isIdentity())
+            return new Reduction(a, b);
+
+        // (alpha, beta) = M^-1 (a, b) = 2^p (sub.alpha, sub.beta) + M^-1 (aLow, bLow)
+        BigInteger aLow = lowerBits(a, p);
+        BigInteger bLow = lowerBits(b, p);
+        BigInteger alphaLow = sub.m11.multiply(aLow).subtract(sub.m01.multiply(bLow));
+        BigInteger betaLow = sub.m00.multiply(bLow).subtract(sub.m10.multiply(aLow));
+        if (sub.det < 0) {
+            alphaLow = alphaLow.negate();
+            betaLow = betaLow.negate();
+        }
+        Reduction r = new Reduction(sub);
+        r.alpha = sub.alpha.shiftLeft(p).add(alphaLow);
+        r.beta = sub.beta.shiftLeft(p).add(betaLow);
+        return r;
+    }
+
+    /**
+     * Subtracts the largest multiple of the smaller number from the larger one that
+     * leaves it above 2<sup>s</sup>.
+     * @return <code>false</code> if no multiple can be subtracted
+     */
+    private static boolean step(Reduction r, int s) {
+        boolean alphaLarger = r.alpha.compareTo(r.beta) > 0;
+        BigInteger x = alphaLarger ? r.alpha : r.beta;
+        BigInteger y = alphaLarger ? r.beta : r.alpha;
+        BigInteger limit = ONE.shiftLeft(s);
+        BigInteger d = x.subtract(limit).subtract(ONE);
+        if (d.compareTo(y) < 0)
+            return false;
+
+        BigInteger q = d.divide(y);
+        if (alphaLarger) {
+            // alpha -= q*beta, M = M [[1,q],[0,1]]
+            r.alpha = x.subtract(q.multiply(y));
+            r.m01 = r.m01.add(q.multiply(r.m00));
+            r.m11 = r.m11.add(q.multiply(r.m10));
+        }
+        else {
+            // beta -= q*alpha, M = M [[1,0],[q,1]]
+            r.beta = x.subtract(q.multiply(y));
+            r.m00 = r.m00.add(q.multiply(r.m01));
+            r.m10 = r.m10.add(q.multiply(r.m11));
+        }
+        return true;
+    }
+
+    /**
+     * Performs Euclidean steps determined from the leading 62 bits of the numbers, as in
+     * {@link MutableBigInteger#hybridGCD(MutableBigInteger)}, for as long as the results are
+     * certain to stay above 2<sup>s</sup>.  The numbers and the matrix are updated in place,
+     * so one pass over them replaces about 30 steps.
+     */
+    private static void lehmerSteps(Reduction r, int s) {
+        MutableBigInteger alpha = new MutableBigInteger(r.alpha);
+        MutableBigInteger beta = new MutableBigInteger(r.beta);
+        MutableBigInteger m00 = new MutableBigInteger(r.m00);
+        MutableBigInteger m01 = new MutableBigInteger(r.m01);
+        MutableBigInteger m10 = new MutableBigInteger(r.m10);
+        MutableBigInteger m11 = new MutableBigInteger(r.m11);
+        long[] L = new long[4];
+        boolean changed = false;
+        while (true) {
+            boolean alphaLarger = alpha.compare(beta) >= 0;
+            MutableBigInteger x = alphaLarger ? alpha : beta;
+            MutableBigInteger y = alphaLarger ? beta : alpha;
+            int shift = x.bitLength() - 62;
+            if (shift <= 0)
+                break;
+            long u = x.leadingBits(shift);
+            long v = y.leadingBits(shift);
+
+            // A remainder C*x + D*y is above 2^shift*(t - max(|C|,|D|)), where t = C*u + D*v.
+            // The cofactors are kept below 2^30 so that the matrix update below fits in a long.
+            long limit = s>shift ? 1L<<(s-shift) : 1;
+            int steps = MutableBigInteger.lehmerMatrix(u, v, 1<<30, limit, L);
+            if (steps == 0)
+                break;
+            long A = L[0], B = L[1], C = L[2], D = L[3];
+
+            // (x', y') = L (x, y) with L = [[A,B],[C,D]], so the columns of M that belong to x
+            // and y are multiplied by L^-1 = det(L) [[D,-B],[-C,A]]
+            MutableBigInteger.combine(x, y, A, B, C, D);
+            long detL = (steps&1)==0 ? 1 : -1;
+            if (alphaLarger) {
+                MutableBigInteger.combine(m00, m01, detL*D, -detL*C, -detL*B, detL*A);
+                MutableBigInteger.combine(m10, m11, detL*D, -detL*C, -detL*B, detL*A);
+            }
+            else {
+                MutableBigInteger.combine(m01, m00, detL*D, -detL*C, -detL*B, detL*A);
+                MutableBigInteger.combine(m11, m10, detL*D, -detL*C, -detL*B, detL*A);
+            }
+            r.det *= detL;
+            changed = true;
+        }
+        if (changed) {
+            r.alpha = alpha.toBigInteger(1);
+            r.beta = beta.toBigInteger(1);
+            r.m00 = m00.toBigInteger(1);
+            r.m01 = m01.toBigInteger(1);
+            r.m10 = m10.toBigInteger(1);
+            r.m11 = m11.toBigInteger(1);
+        }
+    }
+
+    /** Returns <code>true</code> if <code>x &gt; 2<sup>s</sup></code>. */
+    private static boolean greaterThanPowerOfTwo(BigInteger x, int s) {
+        int bitLength = x.bitLength();
+        return bitLength>s+1 || (bitLength==s+1 && x.getLowestSetBit()<s);
+    }
+
+    /** Returns the lower <code>n</code> bits of a non-negative number. */
+    private static BigInteger lowerBits(BigInteger x, int n) {
+        if (x.bitLength() <= n)
+            return x;
+        return x.subtract(x.shiftRight(n).shiftLeft(n));
+    }
+
+    /**
+     * A reduction <code>(a, b) = M (&alpha;, &beta;)</code>.  <code>M</code> is the product
+     * of the matrices of all steps so far and has non-negative entries.
+     */
+    static final class Reduction {
+        BigInteger m00, m01, m10, m11;
+
+        /** The determinant of <code>M</code>, 1 or -1. */
+        int det;
+
+        BigInteger alpha, beta;
+
+        /** Creates the identity reduction of two numbers. */
+        Reduction(BigInteger a, BigInteger b) {
+            m00 = m11 = ONE;
+            m01 = m10 = ZERO;
+            det = 1;
+            alpha = a;
+            beta = b;
+        }
+
+        /** Creates a copy of a reduction. */
+        Reduction(Reduction r) {
+            m00 = r.m00;
+            m01 = r.m01;
+            m10 = r.m10;
+            m11 = r.m11;
+            det = r.det;
+            alpha = r.alpha;
+            beta = r.beta;
+        }
+
+        boolean isIdentity() {
+            return m01.signum==0 && m10.signum==0 && m00.equals(ONE) && m11.equals(ONE);
+        }
+
+        /** Sets <code>M</code> to <code>M N</code>, where <code>N</code> is the matrix of <code>r</code>. */
+        void multiply(Reduction r) {
+            BigInteger n00 = m00.multiply(r.m00).add(m01.multiply(r.m10));
+            BigInteger n01 = m00.multiply(r.m01).add(m01.multiply(r.m11));
+            BigInteger n10 = m10.multiply(r.m00).add(m11.multiply(r.m10));
+            BigInteger n11 = m10.multiply(r.m01).add(m11.multiply(r.m11));
+            m00 = n00;
+            m01 = n01;
+            m10 = n10;
+            m11 = n11;
+            det *= r.det;
+        }
+    }
+}
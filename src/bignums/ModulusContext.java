@@ -0,0 +1,475 @@
+package bignums;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Modular arithmetic with a fixed modulus.<br/>
+ * {@link BigInteger#modPow(BigInteger, BigInteger)} computes the Montgomery constants of the
+ * modulus and converts the base into Montgomery form with a long division on every call. A
+ * context does this work once, so code that exponentiates many times with the same modulus,
+ * such as RSA or Diffie-Hellman, only pays for the multiplications. For odd moduli, the context
+ * keeps <code>-m<sup>-1</sup> mod 2<sup>32</sup></code> and <code>R<sup>2</sup> mod m</code>,
+ * where <code>R = 2<sup>32*n</sup></code> and <code>n</code> is the length of the modulus in
+ * ints; even moduli are supported but get no speedup.<br/>
+ * Contexts are immutable and can be shared between threads.
+ * <pre>
+ * ModulusContext ctx = new ModulusContext(n);
+ * for (BigInteger m : messages)
+ *     signatures.add(ctx.modPow(m, d));
+ * </pre>
+ */
+public final class ModulusContext {
+    /** The smallest number of values per task in {@link #parallelModInverseAll(BigInteger[])}. */
+    private static final int MIN_INVERSE_CHUNK = 256;
+
+    /**
+     * The modulus length, in ints, from which {@link #modInverseAll(BigInteger[])} inverts
+     * the values one by one.  Lehmer's algorithm is quadratic like the multiplications, and
+     * at about 3000 bits an inversion costs less than the three multiplications per value
+     * that Montgomery's trick takes instead.
+     */
+    private static final int BATCH_INVERSE_LIMIT = 96;
+
+    /** The modulus. */
+    private final BigInteger modulus;
+
+    /** The magnitude of the modulus if it is odd and greater than one, otherwise <code>null</code>. */
+    private final int[] mod;
+
+    /** <code>-modulus<sup>-1</sup></code> modulo 2<sup>32</sup>. */
+    private final int inv;
+
+    /** <code>R<sup>2</sup> mod modulus</code>, padded to the length of the modulus. */
+    private final int[] rSquared;
+
+    /**
+     * Creates a context for a modulus.
+     * @param m the modulus
+     * @throws ArithmeticException if {@code m} &le; 0
+     */
+    public ModulusContext(BigInteger m) {
+        if (m.signum <= 0)
+            throw new ArithmeticException("BigInteger: modulus not positive");
+        modulus = m;
+
+        if (m.testBit(0) && !m.equals(BigInteger.ONE)) {
+            mod = m.mag;
+            inv = -MutableBigInteger.inverseMod32(mod[mod.length-1]);
+            rSquared = pad(BigInteger.ONE.shiftLeft(64*mod.length).mod(m));
+        }
+        else {
+            mod = null;
+            inv = 0;
+            rSquared = null;
+        }
+    }
+
+    /**
+     * Returns the modulus of this context.
+     * @return the modulus
+     */
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    /**
+     * Returns <tt>(base<sup>exponent</sup> mod m)</tt>, where m is the modulus of
+     * this context.  The result is the same as that of
+     * <code>base.modPow(exponent, m)</code>.
+     *
+     * @param  base the base.
+     * @param  exponent the exponent.
+     * @return <tt>base<sup>exponent</sup> mod m</tt>
+     * @throws ArithmeticException the exponent is negative and {@code base}
+     *         is not <i>relatively prime</i> to the modulus.
+     */
+    public BigInteger modPow(BigInteger base, BigInteger exponent) {
+        // large moduli use Montgomery reduction built on multiply(), which needs no precomputation here
+        if (mod==null || mod.length>=BigInteger.MONTGOMERY_THRESHOLD)
+            return base.modPow(exponent, modulus);
+
+        if (exponent.signum < 0)
+            return modPow(base, exponent.negate()).modInverse(modulus);
+
+        base = reduce(base);
+        if (exponent.signum == 0)
+            return BigInteger.ONE;
+        if (base.signum == 0 || exponent.equals(BigInteger.ONE))
+            return base;
+
+        int[] result = BigInteger.montgomeryPow(toMontgomery(base), exponent.mag, mod, inv);
+        return BigInteger.fromMontgomery(result, mod, inv);
+    }
+
+    /**
+     * Returns <tt>(a * b mod m)</tt>, where m is the modulus of this context.
+     *
+     * @param  a the first factor.
+     * @param  b the second factor.
+     * @return <tt>a * b mod m</tt>
+     */
+    public BigInteger modMultiply(BigInteger a, BigInteger b) {
+        if (mod == null)
+            return a.multiply(b).mod(modulus);
+
+        a = reduce(a);
+        b = reduce(b);
+        if (a.signum==0 || b.signum==0)
+            return BigInteger.ZERO;
+
+        // (a*b/R) * R^2/R = a*b
+        int[] product = BigInteger.montgomeryMultiply(pad(a), pad(b), mod, inv);
+        return valueOf(BigInteger.montgomeryMultiply(product, rSquared, mod, inv));
+    }
+
+    /**
+     * Returns <tt>(a<sup>2</sup> mod m)</tt>, where m is the modulus of this context.
+     *
+     * @param  a the number to square.
+     * @return <tt>a<sup>2</sup> mod m</tt>
+     */
+    public BigInteger modSquare(BigInteger a) {
+        if (mod == null)
+            return a.square().mod(modulus);
+
+        a = reduce(a);
+        if (a.signum == 0)
+            return BigInteger.ZERO;
+
+        int[] square = BigInteger.montgomerySquare(pad(a), mod, inv);
+        return valueOf(BigInteger.montgomeryMultiply(square, rSquared, mod, inv));
+    }
+
+    /**
+     * Returns <tt>(bases[0]<sup>exponents[0]</sup> * bases[1]<sup>exponents[1]</sup> * ... mod m)</tt>,
+     * where m is the modulus of this context.<br/>
+     * The powers are computed together with the interleaved sliding window method of Straus:
+     * every base gets its own table of odd powers and its own windows, but the squarings are
+     * shared, so a product of <code>k</code> powers of <code>t</code>-bit exponents takes
+     * <code>t</code> squarings rather than <code>k*t</code>.  Each table costs some
+     * multiplications to build, so this is meant for a few dozen bases at most.
+     *
+     * @param  bases the bases.
+     * @param  exponents the exponents, one for each base.
+     * @return the product of the powers, modulo m
+     * @throws IllegalArgumentException the arrays differ in length.
+     * @throws ArithmeticException an exponent is negative and its base
+     *         is not <i>relatively prime</i> to the modulus.
+     */
+    public BigInteger modPowProduct(BigInteger[] bases, BigInteger[] exponents) {
+        if (bases.length != exponents.length)
+            throw new IllegalArgumentException("bases and exponents differ in length");
+
+        if (mod == null) {
+            BigInteger result = BigInteger.ONE.mod(modulus);
+            for (int i=0; i<bases.length; i++)
+                result = result.multiply(bases[i].modPow(exponents[i], modulus)).mod(modulus);
+            return result;
+        }
+
+        // invert all bases with negative exponents first, so a base that is not
+        // invertible throws regardless of where a zero base appears
+        int n = bases.length;
+        BigInteger[] posBases = new BigInteger[n];
+        BigInteger[] posExponents = new BigInteger[n];
+        for (int i=0; i<n; i++) {
+            posBases[i] = bases[i];
+            posExponents[i] = exponents[i];
+            if (exponents[i].signum < 0) {
+                posBases[i] = bases[i].modInverse(modulus);
+                posExponents[i] = exponents[i].negate();
+            }
+        }
+
+        int[][] exps = new int[n][];
+        int[][][] tables = new int[n][][];
+        int maxBits = 0;
+        for (int i=0; i<n; i++) {
+            BigInteger exponent = posExponents[i];
+            if (exponent.signum == 0)
+                continue;
+            BigInteger base = reduce(posBases[i]);
+            if (base.signum == 0)
+                return BigInteger.ZERO;
+
+            exps[i] = exponent.mag;
+            int ebits = BigInteger.bitLength(exps[i], exps[i].length);
+            maxBits = Math.max(maxBits, ebits);
+
+            // odd powers base, base^3, ..., base^(2^w-1) with the window size of oddModPow
+            int wbits = 0;
+            while (ebits > BigInteger.bnExpModThreshTable[wbits])
+                wbits++;
+            int[][] table = new int[1<<wbits][];
+            table[0] = toMontgomery(base);
+            if (wbits > 0) {
+                int[] square = montgomerySquare(table[0]);
+                for (int j=1; j<table.length; j++)
+                    table[j] = montgomeryMultiply(table[j-1], square);
+            }
+            tables[i] = table;
+        }
+        if (maxBits == 0)
+            return BigInteger.ONE;
+
+        // digits[i][p] is the odd window value of exponent i that ends at bit p, or zero
+        int[][] digits = new int[n][];
+        for (int i=0; i<n; i++)
+            if (exps[i] != null)
+                digits[i] = windows(exps[i], Integer.numberOfTrailingZeros(2*tables[i].length));
+
+        int[] result = null;
+        for (int p=maxBits-1; p>=0; p--) {
+            if (result != null)
+                result = montgomerySquare(result);
+            for (int i=0; i<n; i++) {
+                if (digits[i]==null || p>=digits[i].length || digits[i][p]==0)
+                    continue;
+                int[] power = tables[i][digits[i][p]>>>1];
+                result = result==null ? power : montgomeryMultiply(result, power);
+            }
+        }
+        return fromMontgomery(result);
+    }
+
+    /**
+     * Returns the inverses of several numbers modulo m, where m is the modulus of
+     * this context: element <code>i</code> of the result is
+     * <code>values[i].modInverse(m)</code>.<br/>
+     * The inverses are computed with Montgomery's trick: the inverse of the product of
+     * all values is multiplied by the products of all values but one.  This takes one
+     * inversion and <code>3(n-1)</code> multiplications for <code>n</code> values,
+     * where calling {@link BigInteger#modInverse(BigInteger)} for each value takes
+     * <code>n</code> inversions, each of which is several times as expensive as a
+     * multiplication for moduli of up to a few thousand bits.  Larger moduli gain
+     * nothing from the trick, and their values are inverted one by one.
+     *
+     * @param  values the numbers to invert.
+     * @return the inverses, in the same order.
+     * @throws ArithmeticException a value is not <i>relatively prime</i> to the
+     *         modulus; the message names the index of the first such value.
+     */
+    public BigInteger[] modInverseAll(BigInteger[] values) {
+        BigInteger[] result = new BigInteger[values.length];
+        int index = modInverseAll(values, result, 0, values.length);
+        if (index >= 0)
+            throw notInvertible(index);
+        return result;
+    }
+
+    /**
+     * Returns the inverses of several numbers modulo m, like
+     * {@link #modInverseAll(BigInteger[])}, but splits the values into chunks of at
+     * least 256 that are inverted in parallel, each with an inversion of its own.  Tasks
+     * are forked into the current {@code ForkJoinPool}, or into the
+     * {@linkplain ForkJoinPool#commonPool() common pool} if this method is called from
+     * outside a pool.
+     *
+     * @param  values the numbers to invert.
+     * @return the inverses, in the same order.
+     * @throws ArithmeticException a value is not <i>relatively prime</i> to the
+     *         modulus; the message names the index of the first such value.
+     */
+    public BigInteger[] parallelModInverseAll(BigInteger[] values) {
+        BigInteger[] result = new BigInteger[values.length];
+        int parallelism = ForkJoinTask.inForkJoinPool() ?
+                ForkJoinTask.getPool().getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+        // a few tasks per thread so the load stays balanced
+        int grain = Math.max(MIN_INVERSE_CHUNK, values.length / (4*parallelism));
+        int index = new InverseTask(values, result, 0, values.length, grain).invoke();
+        if (index >= 0)
+            throw notInvertible(index);
+        return result;
+    }
+
+    /**
+     * Stores the inverses of <code>values[from]</code> through <code>values[to-1]</code>
+     * in the same elements of <code>result</code>, using Montgomery's trick.
+     * @return -1, or the index of the first value that is not invertible, in which case
+     *         <code>result</code> is incomplete
+     */
+    private int modInverseAll(BigInteger[] values, BigInteger[] result, int from, int to) {
+        int n = to - from;
+        if (n == 0)
+            return -1;
+        if (modulus.equals(BigInteger.ONE)) {
+            Arrays.fill(result, from, to, BigInteger.ZERO);
+            return -1;
+        }
+        if (modulus.mag.length >= BATCH_INVERSE_LIMIT) {
+            for (int i=from; i<to; i++) {
+                result[i] = inverse(reduce(values[i]));
+                if (result[i] == null)
+                    return i;
+            }
+            return -1;
+        }
+
+        if (mod == null) {
+            // prefix[i] = v[0]*...*v[i] mod m
+            BigInteger[] v = new BigInteger[n];
+            BigInteger[] prefix = new BigInteger[n];
+            for (int i=0; i<n; i++) {
+                v[i] = reduce(values[from+i]);
+                prefix[i] = i==0 ? v[0] : prefix[i-1].multiply(v[i]).mod(modulus);
+            }
+            BigInteger inv = inverse(prefix[n-1]);
+            if (inv == null)
+                return firstNotInvertible(values, from, to);
+            for (int i=n-1; i>0; i--) {
+                result[from+i] = prefix[i-1].multiply(inv).mod(modulus);
+                inv = inv.multiply(v[i]).mod(modulus);
+            }
+            result[from] = inv;
+            return -1;
+        }
+
+        // The values are not converted to Montgomery form, so prefix[i] = v[0]*...*v[i] / R^i.
+        // The R factors cancel in the products below: prefix[i-1] * prefix[i]^-1 / R = 1/v[i],
+        // and prefix[i]^-1 * v[i] / R = prefix[i-1]^-1.
+        int[][] v = new int[n][];
+        int[][] prefix = new int[n][];
+        for (int i=0; i<n; i++) {
+            v[i] = pad(reduce(values[from+i]));
+            prefix[i] = i==0 ? v[0] : montgomeryMultiply(prefix[i-1], v[i]);
+        }
+        BigInteger productInverse = inverse(valueOf(prefix[n-1]));
+        if (productInverse == null)
+            return firstNotInvertible(values, from, to);
+        int[] inv = pad(productInverse);
+        for (int i=n-1; i>0; i--) {
+            result[from+i] = valueOf(montgomeryMultiply(prefix[i-1], inv));
+            inv = montgomeryMultiply(inv, v[i]);
+        }
+        result[from] = valueOf(inv);
+        return -1;
+    }
+
+    /** Returns the inverse of a reduced number, or <code>null</code> if it is not invertible. */
+    private BigInteger inverse(BigInteger a) {
+        BigInteger[] gcd = HalfGcd.gcdExtended(a, modulus);
+        return gcd[0].equals(BigInteger.ONE) ? gcd[1].mod(modulus) : null;
+    }
+
+    /** Returns the index of the first value in a range that is not invertible, or -1. */
+    private int firstNotInvertible(BigInteger[] values, int from, int to) {
+        for (int i=from; i<to; i++)
+            if (!values[i].gcd(modulus).equals(BigInteger.ONE))
+                return i;
+        return -1;
+    }
+
+    private static ArithmeticException notInvertible(int index) {
+        return new ArithmeticException("BigInteger not invertible: values[" + index + "]");
+    }
+
+    /**
+     * Inverts a range of values with {@link ModulusContext#modInverseAll(BigInteger[],
+     * BigInteger[], int, int)}, split in halves until at most <code>grain</code> values
+     * are left.  The result is -1, or the index of the first value that is not invertible.
+     */
+    private class InverseTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private final BigInteger[] values, result;
+        private final int from, to, grain;
+
+        InverseTask(BigInteger[] values, BigInteger[] result, int from, int to, int grain) {
+            this.values = values;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        protected Integer compute() {
+            if (to-from <= grain)
+                return modInverseAll(values, result, from, to);
+            int mid = (from+to) >>> 1;
+            InverseTask low = new InverseTask(values, result, from, mid, grain);
+            InverseTask high = new InverseTask(values, result, mid, to, grain);
+            invokeAll(low, high);
+            int index = low.join();
+            return index>=0 ? index : high.join();
+        }
+    }
+
+    /**
+     * Cuts a positive exponent into sliding windows of at most <code>w</code> bits that start and
+     * end with a one bit.  Returns an array indexed by bit position that holds the value of each
+     * window at the position of its lowest bit, and zero elsewhere.
+     */
+    private static int[] windows(int[] exp, int w) {
+        int bits = BigInteger.bitLength(exp, exp.length);
+        int[] digits = new int[bits];
+        int p = bits - 1;
+        while (p >= 0) {
+            if (bit(exp, p) == 0) {
+                p--;
+                continue;
+            }
+            int low = Math.max(p-w+1, 0);
+            while (bit(exp, low) == 0)
+                low++;
+            int value = 0;
+            for (int q=p; q>=low; q--)
+                value = (value<<1) | bit(exp, q);
+            digits[low] = value;
+            p = low - 1;
+        }
+        return digits;
+    }
+
+    /** Returns bit <code>n</code> of a magnitude, or zero if <code>n</code> is past its end. */
+    static int bit(int[] mag, int n) {
+        int i = mag.length - 1 - (n>>>5);
+        return i<0 ? 0 : (mag[i]>>>(n&31)) & 1;
+    }
+
+    /**
+     * Returns <code>true</code> if the modulus is odd and greater than one, so the
+     * Montgomery methods below can be used.
+     */
+    boolean isMontgomery() {
+        return mod != null;
+    }
+
+    /** Returns a number between zero and the modulus that is congruent to <code>a</code>. */
+    BigInteger reduce(BigInteger a) {
+        return a.signum < 0 || a.compareTo(modulus) >= 0 ? a.mod(modulus) : a;
+    }
+
+    /** Returns <code>a*R mod modulus</code> for a reduced number <code>a</code>. */
+    int[] toMontgomery(BigInteger a) {
+        return BigInteger.montgomeryMultiply(pad(a), rSquared, mod, inv);
+    }
+
+    /** Returns <code>a/R mod modulus</code>, converting a number out of Montgomery form. */
+    BigInteger fromMontgomery(int[] a) {
+        return BigInteger.fromMontgomery(a, mod, inv);
+    }
+
+    /** Returns <code>a*b/R mod modulus</code>, the product of two numbers in Montgomery form. */
+    int[] montgomeryMultiply(int[] a, int[] b) {
+        return BigInteger.montgomeryMultiply(a, b, mod, inv);
+    }
+
+    /** Returns <code>a<sup>2</sup>/R mod modulus</code>, the square of a number in Montgomery form. */
+    int[] montgomerySquare(int[] a) {
+        return BigInteger.montgomerySquare(a, mod, inv);
+    }
+
+    /** Returns the magnitude of a reduced number, padded with leading zeros to the length of the modulus. */
+    private int[] pad(BigInteger a) {
+        int[] padded = new int[mod.length];
+        System.arraycopy(a.mag, 0, padded, mod.length-a.mag.length, a.mag.length);
+        return padded;
+    }
+
+    /** Returns a positive number from a magnitude that may have leading zeros. */
+    private static BigInteger valueOf(int[] magnitude) {
+        return new BigInteger(BigInteger.trustedStripLeadingZeroInts(magnitude), 1);
+    }
+}
@@ -723,6 +723,117 @@ class MutableBigInteger {
         return sign;
     }
 
+    /**
+     * Prepares this MutableBigInteger for an in-place operation whose result
+     * has at most len ints: the magnitude is moved to the end of a value array
+     * of at least len ints, and the ints in front of it, up to len, are
+     * cleared.  A new array is at least twice as long as the old one, so a
+     * number that keeps growing is only copied O(log n) times.
+     */
+    private void prepareInPlace(int len) {
+        int[] result = value;
+        if (value.length < len)
+            result = new int[Math.max(len, 2*value.length)];
+        int start = result.length - intLen;
+        if (result != value || start != offset)
+            System.arraycopy(value, offset, result, start, intLen);
+        Arrays.fill(result, result.length-len, start, 0);
+        value = result;
+        offset = start;
+    }
+
+    /**
+     * Adds the magnitude stored in val[off..off+len), which must not have
+     * leading zeros, to this MutableBigInteger in place.
+     */
+    void addMagnitude(int[] val, int off, int len) {
+        int resultLen = Math.max(intLen, len) + 1;
+        prepareInPlace(resultLen);
+
+        int end = value.length;
+        long carry = 0;
+        int i = 1;
+        for (; i<=len; i++) {
+            long sum = (value[end-i] & LONG_MASK) + (val[off+len-i] & LONG_MASK) + carry;
+            value[end-i] = (int)sum;
+            carry = sum >>> 32;
+        }
+        for (; carry!=0; i++) {
+            long sum = (value[end-i] & LONG_MASK) + carry;
+            value[end-i] = (int)sum;
+            carry = sum >>> 32;
+        }
+
+        intLen = Math.max(intLen, i-1);
+        offset = end - intLen;
+    }
+
+    /**
+     * Subtracts the smaller of this MutableBigInteger and the magnitude stored
+     * in val[off..off+len), which must not have leading zeros, from the larger
+     * and places the result into this MutableBigInteger.  Works in place.
+     * Returns 1 if this MutableBigInteger was larger, -1 if it was smaller, and
+     * 0 if they were equal.
+     */
+    int subtractMagnitude(int[] val, int off, int len) {
+        int sign = intLen - len;
+        for (int i=0; sign==0 && i<len; i++)
+            sign = Integer.compare(value[offset+i]+0x80000000, val[off+i]+0x80000000);
+        if (sign == 0) {
+            reset();
+            return 0;
+        }
+
+        int resultLen = Math.max(intLen, len);
+        prepareInPlace(resultLen);
+
+        // value[end-resultLen..end) is now the zero-padded magnitude of this number
+        int end = value.length;
+        long diff = 0;
+        for (int i=1; i<=resultLen; i++) {
+            long x = value[end-i] & LONG_MASK;
+            long y = i<=len ? val[off+len-i] & LONG_MASK : 0;
+            diff = (sign>0 ? x-y : y-x) + (diff>>32);
+            value[end-i] = (int)diff;
+        }
+
+        intLen = resultLen;
+        offset = end - resultLen;
+        normalize();
+        return sign>0 ? 1 : -1;
+    }
+
+    /**
+     * Adds the product of the magnitudes stored in x[0..xlen) and y[0..ylen),
+     * which must not have leading zeros, to this MutableBigInteger in place
+     * using long multiplication.
+     */
+    void addProduct(int[] x, int xlen, int[] y, int ylen) {
+        int resultLen = Math.max(intLen, xlen+ylen) + 1;
+        prepareInPlace(resultLen);
+
+        int end = value.length;
+        for (int j=xlen-1; j>=0; j--) {
+            long xj = x[j] & LONG_MASK;
+            long carry = 0;
+            int k = end - xlen + j;
+            for (int i=ylen-1; i>=0; i--, k--) {
+                long product = xj*(y[i] & LONG_MASK) + (value[k] & LONG_MASK) + carry;
+                value[k] = (int)product;
+                carry = product >>> 32;
+            }
+            for (; carry!=0; k--) {
+                long sum = (value[k] & LONG_MASK) + carry;
+                value[k] = (int)sum;
+                carry = sum >>> 32;
+            }
+        }
+
+        intLen = resultLen;
+        offset = end - resultLen;
+        normalize();
+    }
+
     /**
      * Multiply the contents of two MutableBigInteger objects. The result is
      * placed into MutableBigInteger z. The contents of y are not changed.
@@ -1107,14 +1218,24 @@ class MutableBigInteger {
      * Calculate GCD of this and b. This and b are changed by the computation.
      */
     MutableBigInteger hybridGCD(MutableBigInteger b) {
-        // Use Euclid's algorithm until the numbers are approximately the
-        // same length, then use the binary GCD algorithm to find the GCD.
+        // Use Euclid's algorithm while the numbers differ in length, Lehmer's
+        // algorithm while they are of similar length, and the binary GCD
+        // algorithm once one of them is short.
         MutableBigInteger a = this;
         MutableBigInteger q = new MutableBigInteger();
 
         while (b.intLen != 0) {
-            if (Math.abs(a.intLen - b.intLen) < 2)
-                return a.binaryGCD(b);
+            if (Math.abs(a.intLen - b.intLen) < 2) {
+                if (a.intLen < 3 || b.intLen < 3)
+                    return a.binaryGCD(b);
+                if (a.compare(b) < 0) {
+                    MutableBigInteger t = a;
+                    a = b;
+                    b = t;
+                }
+                if (a.lehmerStep(b))
+                    continue;
+            }
 
             MutableBigInteger r = a.divide(b, q);
             a = b;
@@ -1123,6 +1244,123 @@ class MutableBigInteger {
         return a;
     }
 
+    /**
+     * Performs one step of Lehmer's GCD algorithm (Knuth, Algorithm 4.5.2L):
+     * runs Euclid's algorithm on the leading 62 bits of this and b for as long
+     * as the quotients are certain to be those of the full numbers, then applies
+     * the accumulated cofactors to both numbers in a single pass.  One step
+     * replaces about 30 divisions.  The cofactors are kept below 2<sup>31</sup>
+     * so the pass can use long arithmetic.
+     * Assumes that this &ge; b &gt; 0.
+     * @return <code>false</code> if no quotient could be determined, in which
+     *         case neither number is changed
+     */
+    private boolean lehmerStep(MutableBigInteger b) {
+        int shift = bitLength() - 62;
+        long[] L = new long[4];
+        if (lehmerMatrix(leadingBits(shift), b.leadingBits(shift), Integer.MAX_VALUE, Long.MIN_VALUE, L) == 0)
+            return false;
+        combine(this, b, L[0], L[1], L[2], L[3]);
+        return true;
+    }
+
+    /**
+     * Runs Euclid's algorithm on the leading bits <code>u &ge; v</code> of two
+     * numbers for as long as the quotients are certain to be those of the full
+     * numbers (Knuth, Algorithm 4.5.2L), and stores the matrix
+     * <code>[[A,B],[C,D]]</code> of the steps in <code>L</code> as
+     * <code>{A, B, C, D}</code>.  The steps also stop before a cofactor exceeds
+     * <code>maxCofactor</code> in absolute value, and before the remainder
+     * <code>t</code> of the leading bits satisfies
+     * <code>t - max(|C|,|D|) &lt; limit</code>, which bounds the remainder of the
+     * full numbers from below.
+     * @return the number of steps
+     */
+    static int lehmerMatrix(long u, long v, long maxCofactor, long limit, long[] L) {
+        long A = 1, B = 0, C = 0, D = 1;
+        int steps = 0;
+        while (v+C > 0 && v+D > 0) {
+            long q = (u+A) / (v+C);
+            if (q != (u+B) / (v+D))
+                break;
+            long newC = A - q*C;
+            long newD = B - q*D;
+            long t = u - q*v;
+            if (Math.abs(newC)>maxCofactor || Math.abs(newD)>maxCofactor ||
+                    t - Math.max(Math.abs(newC), Math.abs(newD)) < limit)
+                break;
+            A = C;
+            B = D;
+            C = newC;
+            D = newD;
+            u = v;
+            v = t;
+            steps++;
+        }
+        L[0] = A;
+        L[1] = B;
+        L[2] = C;
+        L[3] = D;
+        return steps;
+    }
+
+    /**
+     * Sets <code>x</code> to <code>A*x + B*y</code> and <code>y</code> to
+     * <code>C*x + D*y</code> in a single pass.  Both results must be
+     * non-negative, and the sums of products must fit in a long: each coefficient
+     * is less than 2<sup>31</sup> in absolute value, and A and B have opposite
+     * signs unless |A|+|B| &le; 2<sup>31</sup>, likewise C and D.
+     */
+    static void combine(MutableBigInteger x, MutableBigInteger y, long A, long B, long C, long D) {
+        int len = Math.max(x.intLen, y.intLen) + 1;
+        x.prepareInPlace(len);
+        y.prepareInPlace(len);
+        int[] xv = x.value;
+        int[] yv = y.value;
+        long carryX = 0, carryY = 0;
+        for (int i=1; i<=len; i++) {
+            long xi = xv[xv.length-i] & LONG_MASK;
+            long yi = yv[yv.length-i] & LONG_MASK;
+            long newX = A*xi + B*yi + carryX;
+            long newY = C*xi + D*yi + carryY;
+            xv[xv.length-i] = (int)newX;
+            yv[yv.length-i] = (int)newY;
+            carryX = newX >> 32;
+            carryY = newY >> 32;
+        }
+        x.intLen = len;
+        x.offset = xv.length - len;
+        x.normalize();
+        y.intLen = len;
+        y.offset = yv.length - len;
+        y.normalize();
+    }
+
+    /** Returns the number of bits in this MutableBigInteger, which must not be zero. */
+    int bitLength() {
+        return 32*(intLen-1) + BigInteger.bitLengthForInt(value[offset]);
+    }
+
+    /**
+     * Returns the bits of this MutableBigInteger from bit <code>shift</code> up to
+     * bit <code>shift+63</code> (exclusive) as a long.
+     * Assumes that the result is non-negative.
+     */
+    long leadingBits(int shift) {
+        int wordShift = shift >>> 5;
+        int bitShift = shift & 31;
+        long low = ((long)getWord(wordShift+1) << 32) | (getWord(wordShift) & LONG_MASK);
+        long bits = low >>> bitShift;
+        if (bitShift != 0)
+            bits |= (long)getWord(wordShift+2) << (64-bitShift);
+        return bits;
+    }
+
+    /** Returns the int at position <code>index</code>, counting from the least significant int. */
+    private int getWord(int index) {
+        return index<intLen ? value[offset+intLen-1-index] : 0;
+    }
+
     /**
      * Calculate GCD of this and v.
      * Assumes that this and v are not zero.
@@ -1209,85 +1447,6 @@ class MutableBigInteger {
         return a<<t;
     }
 
-    /**
-     * Returns the modInverse of this mod p. This and p are not affected by
-     * the operation.
-     */
-    MutableBigInteger mutableModInverse(MutableBigInteger p) {
-        // Modulus is odd, use Schroeppel's algorithm
-        if (p.isOdd())
-            return modInverse(p);
-
-        // Base and modulus are even, throw exception
-        if (isEven())
-            throw new ArithmeticException("BigInteger not invertible.");
-
-        // Get even part of modulus expressed as a power of 2
-        int powersOf2 = p.getLowestSetBit();
-
-        // Construct odd part of modulus
-        MutableBigInteger oddMod = new MutableBigInteger(p);
-        oddMod.rightShift(powersOf2);
-
-        if (oddMod.isOne())
-            return modInverseMP2(powersOf2);
-
-        // Calculate 1/a mod oddMod
-        MutableBigInteger oddPart = modInverse(oddMod);
-
-        // Calculate 1/a mod evenMod
-        MutableBigInteger evenPart = modInverseMP2(powersOf2);
-
-        // Combine the results using Chinese Remainder Theorem
-        MutableBigInteger y1 = modInverseBP2(oddMod, powersOf2);
-        MutableBigInteger y2 = oddMod.modInverseMP2(powersOf2);
-
-        MutableBigInteger temp1 = new MutableBigInteger();
-        MutableBigInteger temp2 = new MutableBigInteger();
-        MutableBigInteger result = new MutableBigInteger();
-
-        oddPart.leftShift(powersOf2);
-        oddPart.multiply(y1, result);
-
-        evenPart.multiply(oddMod, temp1);
-        temp1.multiply(y2, temp2);
-
-        result.add(temp2);
-        return result.divide(p, temp1);
-    }
-
-    /*
-     * Calculate the multiplicative inverse of this mod 2^k.
-     */
-    MutableBigInteger modInverseMP2(int k) {
-        if (isEven())
-            throw new ArithmeticException("Non-invertible. (GCD != 1)");
-
-        if (k > 64)
-            return euclidModInverse(k);
-
-        int t = inverseMod32(value[offset+intLen-1]);
-
-        if (k < 33) {
-            t = (k == 32 ? t : t & ((1 << k) - 1));
-            return new MutableBigInteger(t);
-        }
-
-        long pLong = (value[offset+intLen-1] & LONG_MASK);
-        if (intLen > 1)
-            pLong |=  ((long)value[offset+intLen-2] << 32);
-        long tLong = t & LONG_MASK;
-        tLong = tLong * (2 - pLong * tLong);  // 1 more Newton iter step
-        tLong = (k == 64 ? tLong : tLong & ((1L << k) - 1));
-
-        MutableBigInteger result = new MutableBigInteger(new int[2]);
-        result.value[0] = (int)(tLong >>> 32);
-        result.value[1] = (int)tLong;
-        result.intLen = 2;
-        result.normalize();
-        return result;
-    }
-
     /*
      * Returns the multiplicative inverse of val mod 2^32.  Assumes val is odd.
      */
@@ -1301,176 +1460,4 @@ class MutableBigInteger {
         return t;
     }
 
-    /*
-     * Calculate the multiplicative inverse of 2^k mod mod, where mod is odd.
-     */
-    static MutableBigInteger modInverseBP2(MutableBigInteger mod, int k) {
-        // Copy the mod to protect original
-        return fixup(new MutableBigInteger(1), new MutableBigInteger(mod), k);
-    }
-
-    /**
-     * Calculate the multiplicative inverse of this mod mod, where mod is odd.
-     * This and mod are not changed by the calculation.
-     *
-     * This method implements an algorithm due to Richard Schroeppel, that uses
-     * the same intermediate representation as Montgomery Reduction
-     * ("Montgomery Form").  The algorithm is described in an unpublished
-     * manuscript entitled "Fast Modular Reciprocals."
-     */
-    private MutableBigInteger modInverse(MutableBigInteger mod) {
-        MutableBigInteger p = new MutableBigInteger(mod);
-        MutableBigInteger f = new MutableBigInteger(this);
-        MutableBigInteger g = new MutableBigInteger(p);
-        SignedMutableBigInteger c = new SignedMutableBigInteger(1);
-        SignedMutableBigInteger d = new SignedMutableBigInteger();
-        MutableBigInteger temp = null;
-        SignedMutableBigInteger sTemp = null;
-
-        int k = 0;
-        // Right shift f k times until odd, left shift d k times
-        if (f.isEven()) {
-            int trailingZeros = f.getLowestSetBit();
-            f.rightShift(trailingZeros);
-            d.leftShift(trailingZeros);
-            k = trailingZeros;
-        }
-
-        // The Almost Inverse Algorithm
-        while(!f.isOne()) {
-            // If gcd(f, g) != 1, number is not invertible modulo mod
-            if (f.isZero())
-                throw new ArithmeticException("BigInteger not invertible.");
-
-            // If f < g exchange f, g and c, d
-            if (f.compare(g) < 0) {
-                temp = f; f = g; g = temp;
-                sTemp = d; d = c; c = sTemp;
-            }
-
-            // If f == g (mod 4)
-            if (((f.value[f.offset + f.intLen - 1] ^
-                 g.value[g.offset + g.intLen - 1]) & 3) == 0) {
-                f.subtract(g);
-                c.signedSubtract(d);
-            } else { // If f != g (mod 4)
-                f.add(g);
-                c.signedAdd(d);
-            }
-
-            // Right shift f k times until odd, left shift d k times
-            int trailingZeros = f.getLowestSetBit();
-            f.rightShift(trailingZeros);
-            d.leftShift(trailingZeros);
-            k += trailingZeros;
-        }
-
-        while (c.sign < 0)
-           c.signedAdd(p);
-
-        return fixup(c, p, k);
-    }
-
-    /*
-     * The Fixup Algorithm
-     * Calculates X such that X = C * 2^(-k) (mod P)
-     * Assumes C<P and P is odd.
-     */
-    static MutableBigInteger fixup(MutableBigInteger c, MutableBigInteger p,
-                                                                      int k) {
-        MutableBigInteger temp = new MutableBigInteger();
-        // Set r to the multiplicative inverse of p mod 2^32
-        int r = -inverseMod32(p.value[p.offset+p.intLen-1]);
-
-        for(int i=0, numWords = k >> 5; i<numWords; i++) {
-            // V = R * c (mod 2^j)
-            int  v = r * c.value[c.offset + c.intLen-1];
-            // c = c + (v * p)
-            p.mul(v, temp);
-            c.add(temp);
-            // c = c / 2^j
-            c.intLen--;
-        }
-        int numBits = k & 0x1f;
-        if (numBits != 0) {
-            // V = R * c (mod 2^j)
-            int v = r * c.value[c.offset + c.intLen-1];
-            v &= ((1<<numBits) - 1);
-            // c = c + (v * p)
-            p.mul(v, temp);
-            c.add(temp);
-            // c = c / 2^j
-            c.rightShift(numBits);
-        }
-
-        // In theory, c may be greater than p at this point (Very rare!)
-        while (c.compare(p) >= 0)
-            c.subtract(p);
-
-        return c;
-    }
-
-    /**
-     * Uses the extended Euclidean algorithm to compute the modInverse of base
-     * mod a modulus that is a power of 2. The modulus is 2^k.
-     */
-    MutableBigInteger euclidModInverse(int k) {
-        MutableBigInteger b = new MutableBigInteger(1);
-        b.leftShift(k);
-        MutableBigInteger mod = new MutableBigInteger(b);
-
-        MutableBigInteger a = new MutableBigInteger(this);
-        MutableBigInteger q = new MutableBigInteger();
-        MutableBigInteger r = b.divide(a, q);
-
-        MutableBigInteger swapper = b;
-        // swap b & r
-        b = r;
-        r = swapper;
-
-        MutableBigInteger t1 = new MutableBigInteger(q);
-        MutableBigInteger t0 = new MutableBigInteger(1);
-        MutableBigInteger temp = new MutableBigInteger();
-
-        while (!b.isOne()) {
-            r = a.divide(b, q);
-
-            if (r.intLen == 0)
-                throw new ArithmeticException("BigInteger not invertible.");
-
-            swapper = r;
-            a = swapper;
-
-            if (q.intLen == 1)
-                t1.mul(q.value[q.offset], temp);
-            else
-                q.multiply(t1, temp);
-            swapper = q;
-            q = temp;
-            temp = swapper;
-            t0.add(q);
-
-            if (a.isOne())
-                return t0;
-
-            r = b.divide(a, q);
-
-            if (r.intLen == 0)
-                throw new ArithmeticException("BigInteger not invertible.");
-
-            swapper = b;
-            b =  r;
-
-            if (q.intLen == 1)
-                t0.mul(q.value[q.offset], temp);
-            else
-                q.multiply(t0, temp);
-            swapper = q; q = temp; temp = swapper;
-
-            t1.add(q);
-        }
-        mod.subtract(t1);
-        return mod;
-    }
-
 }
@@ -0,0 +1,136 @@
+package bignums;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A cache of powers of radixes shared by the string conversions of {@link BigInteger}
+ * and the scaling code of {@link BigDecimal}.<br/>
+ * For each radix, two lines of powers are kept: radix<sup>n</sup> for small <code>n</code>,
+ * and radix<sup>2<sup>k</sup></sup>, which are computed by repeated squaring and from which
+ * other powers are built. Lines are never modified after they have been published; a thread
+ * that needs a longer line copies it and publishes the copy with a compare-and-set, so
+ * readers need no locking.<br/>
+ * The size of the cache is bounded: powers with more than {@link #MAX_CACHED_INTS} ints are
+ * not cached at all, and powers with more than {@link #STRONG_INTS} ints are only softly
+ * reachable, so the garbage collector evicts the largest entries when memory runs low.
+ * Evicted entries are recomputed when they are needed again.
+ */
+final class RadixPowerCache {
+    /** The number of powers radix<sup>n</sup> kept per radix. */
+    private static final int SMALL_POWERS = 256;
+
+    /** Powers with at most this many ints are always kept. */
+    private static final int STRONG_INTS = 1 << 12;
+
+    /** Powers with more than this many ints are not cached. */
+    static final int MAX_CACHED_INTS = 1 << 22;
+
+    /** radix<sup>n</sup> for <code>n</code> less than the length of the line, indexed by radix. */
+    private static final AtomicReferenceArray<BigInteger[]> smallPowers =
+            new AtomicReferenceArray<BigInteger[]>(Character.MAX_RADIX+1);
+
+    /**
+     * radix<sup>2<sup>k</sup></sup> for <code>k</code> less than the length of the line, indexed
+     * by radix. Elements are either a <code>BigInteger</code> or a <code>SoftReference</code> to one.
+     */
+    private static final AtomicReferenceArray<Object[]> squarePowers =
+            new AtomicReferenceArray<Object[]>(Character.MAX_RADIX+1);
+
+    private RadixPowerCache() {
+    }
+
+    /**
+     * Returns radix<sup>n</sup>.
+     * @param radix a radix between {@link Character#MIN_RADIX} and {@link Character#MAX_RADIX}
+     * @param n a non-negative exponent
+     */
+    static BigInteger pow(int radix, int n) {
+        if (n < SMALL_POWERS)
+            return smallPow(radix, n);
+
+        // multiply the powers radix^(2^k) for the one bits of n, smallest first, so the last
+        // and most expensive multiplication has operands of similar length
+        BigInteger result = smallPow(radix, n & (SMALL_POWERS-1));
+        int k = Integer.numberOfTrailingZeros(SMALL_POWERS);
+        for (n>>>=k; n!=0; n>>>=1, k++)
+            if ((n&1) != 0)
+                result = result.multiply(squarePow(radix, k));
+        return result;
+    }
+
+    /**
+     * Returns radix<sup>2<sup>k</sup></sup>.
+     * @param radix a radix between {@link Character#MIN_RADIX} and {@link Character#MAX_RADIX}
+     * @param k a non-negative exponent
+     */
+    static BigInteger squarePow(int radix, int k) {
+        Object[] line = squarePowers.get(radix);
+        if (line != null && k < line.length) {
+            BigInteger power = get(line[k]);
+            if (power != null)
+                return power;
+        }
+
+        BigInteger power = k==0 ? BigInteger.valueOf(radix) : squarePow(radix, k-1).square();
+        if (power.mag.length > MAX_CACHED_INTS)
+            return power;
+        Object entry = power.mag.length > STRONG_INTS ? new SoftReference<BigInteger>(power) : power;
+
+        // Publish the power unless another thread already has.  The line has at least k
+        // entries because computing radix^(2^(k-1)) published it; the check below only
+        // makes sure a line never has gaps.
+        while (true) {
+            line = squarePowers.get(radix);
+            Object[] newLine;
+            if (line == null || k >= line.length) {
+                if ((line==null ? 0 : line.length) < k)
+                    return power;
+                newLine = line==null ? new Object[k+1] : Arrays.copyOf(line, k+1);
+            }
+            else {
+                BigInteger existing = get(line[k]);
+                if (existing != null)
+                    return existing;
+                newLine = line.clone();
+            }
+            newLine[k] = entry;
+            if (squarePowers.compareAndSet(radix, line, newLine))
+                return power;
+        }
+    }
+
+    /** Returns radix<sup>n</sup> for <code>n &lt; SMALL_POWERS</code>. */
+    private static BigInteger smallPow(int radix, int n) {
+        BigInteger[] line = smallPowers.get(radix);
+        if (line != null && n < line.length)
+            return line[n];
+
+        // grow the line to the next power of two so it is copied only a few times
+        while (true) {
+            int oldLength = line==null ? 0 : line.length;
+            int newLength = Math.max(16, oldLength);
+            while (newLength <= n)
+                newLength *= 2;
+            BigInteger[] newLine = line==null ? new BigInteger[newLength] : Arrays.copyOf(line, newLength);
+            BigInteger bigRadix = BigInteger.valueOf(radix);
+            for (int i=oldLength; i<newLength; i++)
+                newLine[i] = i==0 ? BigInteger.ONE : newLine[i-1].multiply(bigRadix);
+            if (smallPowers.compareAndSet(radix, line, newLine))
+                return newLine[n];
+            line = smallPowers.get(radix);
+            if (n < line.length)
+                return line[n];
+        }
+    }
+
+    /** Returns the power an entry refers to, or <code>null</code> if it has been evicted. */
+    @SuppressWarnings("unchecked")
+    private static BigInteger get(Object entry) {
+        if (entry instanceof SoftReference)
+            return ((SoftReference<BigInteger>)entry).get();
+        else
+            return (BigInteger)entry;
+    }
+}
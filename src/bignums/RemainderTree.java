@@ -0,0 +1,94 @@
+package bignums;
+
+/**
+ * Reduction of numbers modulo many moduli at once.<br/>
+ * Reducing a number modulo <code>k</code> moduli with separate {@link BigInteger#mod} calls
+ * reads the whole number <code>k</code> times. A remainder tree multiplies the moduli in
+ * pairs, the pairs in pairs and so on up to the product of all moduli. A number is reduced
+ * modulo the product, and the remainder at each node modulo the two products below it, down
+ * to the moduli. The divisions on one level of the tree take about as long as a single
+ * division of the size of the product, and large ones use the Burnikel-Ziegler and Barrett
+ * algorithms, so all residues cost <code>O(M(n) log k)</code> for moduli with a product of
+ * <code>n</code> bits.<br/>
+ * The tree only depends on the moduli and can be reused for many numbers. Trees are immutable
+ * and can be shared between threads.
+ * <pre>
+ * RemainderTree tree = new RemainderTree(primes);
+ * BigInteger[] residues = tree.mod(x);
+ * </pre>
+ */
+public final class RemainderTree {
+    /**
+     * <code>levels[0]</code> holds the moduli, and <code>levels[l][i]</code> is the product of
+     * <code>levels[l-1][2*i]</code> and <code>levels[l-1][2*i+1]</code>, or
+     * <code>levels[l-1][2*i]</code> alone if it is the last node on its level.  The last level
+     * holds the product of all moduli.  {@link CrtContext} combines residues along the same tree.
+     */
+    final BigInteger[][] levels;
+
+    /**
+     * Creates a remainder tree for the given moduli.
+     * @param moduli the moduli
+     * @throws ArithmeticException if a modulus is &le; 0
+     */
+    public RemainderTree(BigInteger[] moduli) {
+        for (BigInteger m : moduli)
+            if (m.signum <= 0)
+                throw new ArithmeticException("BigInteger: modulus not positive");
+
+        int depth = 1;
+        for (int n=moduli.length; n>1; n=(n+1)/2)
+            depth++;
+        levels = new BigInteger[depth][];
+        levels[0] = moduli.clone();
+        for (int l=1; l<depth; l++) {
+            BigInteger[] below = levels[l-1];
+            BigInteger[] level = new BigInteger[(below.length+1)/2];
+            for (int i=0; i<below.length/2; i++)
+                level[i] = below[2*i].multiply(below[2*i+1]);
+            if (below.length%2 != 0)
+                level[level.length-1] = below[below.length-1];
+            levels[l] = level;
+        }
+    }
+
+    /**
+     * Returns the moduli of this tree.
+     * @return a copy of the moduli
+     */
+    public BigInteger[] getModuli() {
+        return levels[0].clone();
+    }
+
+    /**
+     * Returns the product of the moduli of this tree, or one if there are no moduli.
+     * @return the product of the moduli
+     */
+    public BigInteger getProduct() {
+        return levels[0].length==0 ? BigInteger.ONE : levels[levels.length-1][0];
+    }
+
+    /**
+     * Returns the residues of a number modulo each of the moduli.  Element <code>i</code> of
+     * the result is the same as <code>value.mod(moduli[i])</code>.
+     * @param value the number to reduce
+     * @return the residues, in the order of the moduli
+     */
+    public BigInteger[] mod(BigInteger value) {
+        if (levels[0].length == 0)
+            return new BigInteger[0];
+
+        int top = levels.length - 1;
+        BigInteger[] remainders = {value.mod(levels[top][0])};
+        for (int l=top-1; l>=0; l--) {
+            BigInteger[] level = levels[l];
+            BigInteger[] next = new BigInteger[level.length];
+            for (int i=0; i<level.length; i++) {
+                BigInteger r = remainders[i/2];
+                next[i] = r.compareTo(level[i])<0 ? r : r.mod(level[i]);
+            }
+            remainders = next;
+        }
+        return remainders;
+    }
+}
@@ -0,0 +1,409 @@
+package bignums;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Measures the crossover points between the multiplication, squaring and division
+ * algorithms of {@link BigInteger} on the running JVM and writes them to a properties
+ * file that <code>BigInteger</code> reads at class initialization.<br/>
+ * Usage: <code>java bignums.ThresholdCalibrator [outputFile [maxBits]]</code><br/>
+ * <code>outputFile</code> defaults to <code>thresholds.properties</code>. <code>maxBits</code>
+ * is the largest input size, in bits, for which Schönhage-Strassen and Barrett are
+ * measured; it defaults to 2<sup>22</sup>. A full run takes several minutes.<br/>
+ * To use the results, either pass <code>-Dbignums.thresholds=outputFile</code> to the JVM
+ * or put the file on the class path as <code>bignums/thresholds.properties</code>.<br/>
+ * The calibrator changes the thresholds of <code>BigInteger</code> while it measures, so it
+ * must run in a JVM of its own and not alongside other code that uses <code>BigInteger</code>.
+ * @see BigInteger#THRESHOLDS_PROPERTY
+ */
+public class ThresholdCalibrator {
+    private static final long WARMUP_DURATION = 5000000000L;   // in nanoseconds
+    private static final long MIN_MEASURE_DURATION = 100000000;   // in nanoseconds
+    private static final int NO_THRESHOLD = Integer.MAX_VALUE;
+    private static final int[] NEVER = new int[0];
+    private static final int[] ALWAYS = {0};
+
+    private static Random rng = new Random();
+
+    /** Holds results so the JIT cannot eliminate the measured operations. */
+    private static volatile Object sink;
+
+    private ThresholdCalibrator() {
+    }
+
+    /**
+     * @param args the output file and the maximum input size in bits, both optional
+     * @throws IOException if the output file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        String fileName = args.length > 0 ? args[0] : "thresholds.properties";
+        int maxBits = args.length > 1 ? Integer.parseInt(args[1]) : 1<<22;
+
+        warmUp();
+
+        // Start from the smallest thresholds affected by each measurement so that every
+        // measurement compares exactly one level of the faster algorithm against the slower one.
+        BigInteger.KARATSUBA_THRESHOLD = calibrateKaratsuba();
+        report("karatsuba", BigInteger.KARATSUBA_THRESHOLD);
+        BigInteger.TOOM_COOK_THRESHOLD = calibrateToomCook();
+        report("toomcook", BigInteger.TOOM_COOK_THRESHOLD);
+        BigInteger.KARATSUBA_SQUARE_THRESHOLD = calibrateKaratsubaSquare();
+        report("karatsuba.square", BigInteger.KARATSUBA_SQUARE_THRESHOLD);
+        BigInteger.TOOM_COOK_SQUARE_THRESHOLD = calibrateToomCookSquare();
+        report("toomcook.square", BigInteger.TOOM_COOK_SQUARE_THRESHOLD);
+        BigInteger.BURNIKEL_ZIEGLER_THRESHOLD = calibrateBurnikelZiegler();
+        report("burnikelziegler", BigInteger.BURNIKEL_ZIEGLER_THRESHOLD);
+        BigInteger.SCHÖNHAGE_STRASSEN_CROSSOVERS = calibrateSchönhageStrassen(maxBits);
+        report("schoenhagestrassen", BigInteger.SCHÖNHAGE_STRASSEN_CROSSOVERS);
+        BigInteger.SCHÖNHAGE_STRASSEN_SQUARE_CROSSOVERS = calibrateSchönhageStrassenSquare(maxBits);
+        report("schoenhagestrassen.square", BigInteger.SCHÖNHAGE_STRASSEN_SQUARE_CROSSOVERS);
+        BigInteger.NEWTON_THRESHOLD = calibrateNewton();
+        report("newton", BigInteger.NEWTON_THRESHOLD);
+        BigInteger.BARRETT_CROSSOVERS = calibrateBarrett(maxBits);
+        report("barrett", BigInteger.BARRETT_CROSSOVERS);
+        BigInteger.SCHÖNHAGE_BASE_CONVERSION_THRESHOLD = calibrateBaseConversion();
+        report("baseconversion", BigInteger.SCHÖNHAGE_BASE_CONVERSION_THRESHOLD);
+        BigInteger.SCHÖNHAGE_BASE_PARSE_THRESHOLD = calibrateBaseParse();
+        report("baseparse", BigInteger.SCHÖNHAGE_BASE_PARSE_THRESHOLD);
+        BigInteger.MONTGOMERY_THRESHOLD = calibrateMontgomery();
+        report("montgomery", BigInteger.MONTGOMERY_THRESHOLD);
+        BigInteger.HALF_GCD_THRESHOLD = calibrateHalfGcd(maxBits);
+        report("halfgcd", BigInteger.HALF_GCD_THRESHOLD);
+
+        Properties props = BigInteger.getThresholds();
+        OutputStream out = new FileOutputStream(fileName);
+        try {
+            props.store(out, "BigInteger thresholds for " + System.getProperty("java.vm.name") + " " +
+                    System.getProperty("java.version") + " on " + System.getProperty("os.arch"));
+        } finally {
+            out.close();
+        }
+        System.out.println("Thresholds written to " + fileName);
+    }
+
+    /** Runs all algorithms for a while so the JIT has compiled them before anything is measured. */
+    private static void warmUp() {
+        System.out.println("Warming up...");
+        long tStart = System.nanoTime();
+        while (System.nanoTime()-tStart < WARMUP_DURATION) {
+            BigInteger a = random(2000);
+            BigInteger b = random(1000);
+            sink = a.multiply(b);
+            sink = a.square();
+            sink = a.divideAndRemainder(b);
+            sink = new BigInteger(a.toString());
+        }
+    }
+
+    /**
+     * Finds the smallest input size, in ints, at which Karatsuba multiplication
+     * beats long multiplication.
+     */
+    private static int calibrateKaratsuba() {
+        BigInteger.TOOM_COOK_THRESHOLD = NO_THRESHOLD;
+        return findThreshold(new Op() {
+            Object run(BigInteger a, BigInteger b, int threshold) {
+                BigInteger.KARATSUBA_THRESHOLD = threshold;
+                return a.multiply(b);
+            }
+        }, 1, 8);
+    }
+
+    /**
+     * Finds the smallest input size, in ints, at which Toom-Cook multiplication
+     * beats Karatsuba multiplication.
+     */
+    private static int calibrateToomCook() {
+        BigInteger.SCHÖNHAGE_STRASSEN_CROSSOVERS = NEVER;
+        return findThreshold(new Op() {
+            Object run(BigInteger a, BigInteger b, int threshold) {
+                BigInteger.TOOM_COOK_THRESHOLD = threshold;
+                return a.multiply(b);
+            }
+        }, 1, BigInteger.KARATSUBA_THRESHOLD);
+    }
+
+    private static int calibrateKaratsubaSquare() {
+        BigInteger.TOOM_COOK_SQUARE_THRESHOLD = NO_THRESHOLD;
+        return findThreshold(new Op() {
+            Object run(BigInteger a, BigInteger b, int threshold) {
+                BigInteger.KARATSUBA_SQUARE_THRESHOLD = threshold;
+                return a.square();
+            }
+        }, 1, 8);
+    }
+
+    private static int calibrateToomCookSquare() {
+        BigInteger.SCHÖNHAGE_STRASSEN_SQUARE_CROSSOVERS = NEVER;
+        return findThreshold(new Op() {
+            Object run(BigInteger a, BigInteger b, int threshold) {
+                BigInteger.TOOM_COOK_SQUARE_THRESHOLD = threshold;
+                return a.square();
+            }
+        }, 1, BigInteger.KARATSUBA_SQUARE_THRESHOLD);
+    }
+
+    /**
+     * Finds the smallest divisor size, in ints, at which Burnikel-Ziegler division
+     * of a twice as long number beats long division.
+     */
+    private static int calibrateBurnikelZiegler() {
+        BigInteger.BARRETT_CROSSOVERS = NEVER;
+        return findThreshold(new Op() {
+            Object run(BigInteger a, BigInteger b, int threshold) {
+                BigInteger.BURNIKEL_ZIEGLER_THRESHOLD = threshold;
+                return a.divideAndRemainder(b);
+            }
+        }, 2, 8);
+    }
+
+    /**
+     * Finds the smallest input size, in ints, at which recursive base conversion
+     * beats repeated division in {@link BigInteger#toString()}.
+     */
+    private static int calibrateBaseConversion() {
+        return findThreshold(new Op() {
+            Object run(BigInteger a, BigInteger b, int threshold) {
+                BigInteger.SCHÖNHAGE_BASE_CONVERSION_THRESHOLD = threshold;
+                return a.toString();
+            }
+        }, 1, 4);
+    }
+
+    /**
+     * Finds the smallest input size, in ints, at which recursive parsing
+     * beats parsing one digit group at a time in {@link BigInteger#BigInteger(String)}.
+     */
+    private static int calibrateBaseParse() {
+        return findThreshold(new Op() {
+            BigInteger last;
+            String digits;
+
+            Object run(BigInteger a, BigInteger b, int threshold) {
+                if (a != last) {
+                    last = a;
+                    digits = a.toString();
+                }
+                BigInteger.SCHÖNHAGE_BASE_PARSE_THRESHOLD = threshold;
+                return new BigInteger(digits);
+            }
+        }, 1, 4);
+    }
+
+    /**
+     * Finds the smallest modulus size, in ints, at which Montgomery reduction built on
+     * {@link BigInteger#multiply(BigInteger)} beats word-by-word Montgomery reduction in
+     * {@link BigInteger#modPow(BigInteger, BigInteger)}.  A short exponent keeps the
+     * measurements fast; the crossover does not depend much on its length.
+     */
+    private static int calibrateMontgomery() {
+        final BigInteger exponent = random(64);
+        return findThreshold(new Op() {
+            BigInteger last;
+            BigInteger modulus;
+
+            Object run(BigInteger a, BigInteger b, int threshold) {
+                if (b != last) {
+                    last = b;
+                    modulus = b.setBit(0);
+                }
+                BigInteger.MONTGOMERY_THRESHOLD = threshold;
+                return a.modPow(exponent, modulus);
+            }
+        }, 1, 64);
+    }
+
+    /**
+     * Finds the smallest input size, in ints, at which the half-GCD algorithm beats
+     * Lehmer's algorithm in {@link BigInteger#gcd(BigInteger)}.  The crossover is far
+     * above the range of {@link #findThreshold(Op, int, int)}, so the sizes are sampled
+     * once per octave.
+     */
+    private static int calibrateHalfGcd(int maxBits) {
+        int[] crossovers = findCrossovers(new Op() {
+            Object run(BigInteger a, BigInteger b, int bitLength) {
+                BigInteger.HALF_GCD_THRESHOLD = bitLength==NO_THRESHOLD ? NO_THRESHOLD : bitLength/32;
+                return a.gcd(b);
+            }
+        }, 1, Math.min(1<<18, maxBits/2), maxBits, 1);
+        return crossovers[0] / 32;
+    }
+
+    /**
+     * Increases the input size until the faster algorithm wins three times in a row.
+     * <code>op</code> must use the slower algorithm if the threshold is
+     * {@link #NO_THRESHOLD} and the faster one at the top level if the threshold
+     * equals the input size.
+     * @param op the operation to measure
+     * @param aFactor the length of the first operand relative to the second
+     * @param minLen the input size, in ints, to start at
+     * @return the smallest input size, in ints, at which the faster algorithm wins
+     */
+    private static int findThreshold(Op op, int aFactor, int minLen) {
+        int wins = 0;
+        int firstWin = 0;
+        int len = minLen;
+        while (len < 2000) {
+            BigInteger a = random(aFactor*len*32);
+            BigInteger b = random(len*32);
+            long tSlow = time(op, a, b, NO_THRESHOLD);
+            long tFast = time(op, a, b, len);
+            if (tFast < tSlow) {
+                if (wins == 0)
+                    firstWin = len;
+                if (++wins >= 3)
+                    return firstWin;
+            }
+            else
+                wins = 0;
+            len += len/8 + 1;
+        }
+        return wins>0 ? firstWin : len;
+    }
+
+    /** Finds the input sizes at which Schönhage-Strassen multiplication beats Toom-Cook and vice versa. */
+    private static int[] calibrateSchönhageStrassen(int maxBits) {
+        return findCrossovers(new Op() {
+            Object run(BigInteger a, BigInteger b, int bitLength) {
+                BigInteger.SCHÖNHAGE_STRASSEN_CROSSOVERS = useAt(bitLength);
+                return a.multiply(b);
+            }
+        }, 1, 1<<15, maxBits, 4);
+    }
+
+    private static int[] calibrateSchönhageStrassenSquare(int maxBits) {
+        return findCrossovers(new Op() {
+            Object run(BigInteger a, BigInteger b, int bitLength) {
+                BigInteger.SCHÖNHAGE_STRASSEN_SQUARE_CROSSOVERS = useAt(bitLength);
+                return a.square();
+            }
+        }, 1, 1<<15, maxBits, 4);
+    }
+
+    /** Finds the divisor sizes at which Barrett division beats Burnikel-Ziegler and vice versa. */
+    private static int[] calibrateBarrett(int maxBits) {
+        return findCrossovers(new Op() {
+            Object run(BigInteger a, BigInteger b, int bitLength) {
+                // Barrett does not call divide() recursively, so it can be enabled for all sizes
+                BigInteger.BARRETT_CROSSOVERS = bitLength==NO_THRESHOLD ? NEVER : ALWAYS;
+                return a.divideAndRemainder(b);
+            }
+        }, 2, Math.min(1<<20, maxBits/2), maxBits, 2);
+    }
+
+    /**
+     * Returns crossover points that select the faster algorithm only for inputs of
+     * exactly <code>bitLength</code> bits, so smaller recursive calls are unaffected.
+     */
+    private static int[] useAt(int bitLength) {
+        return bitLength==NO_THRESHOLD ? NEVER : new int[] {bitLength, bitLength+1};
+    }
+
+    /**
+     * Finds the input sizes at which the fastest of two algorithms changes. Sizes from
+     * <code>minBits</code> to <code>maxBits</code> are sampled at <code>pointsPerOctave</code>
+     * points between consecutive powers of two, plus one point just below each power of two
+     * because the running time of Schönhage-Strassen jumps at powers of two.
+     * @param op the operation to measure; see {@link #findThreshold(Op, int, int)}
+     * @param aFactor the length of the first operand relative to the second
+     * @return crossover points in the format of {@link BigInteger#SCHÖNHAGE_STRASSEN_CROSSOVERS}
+     */
+    private static int[] findCrossovers(Op op, int aFactor, int minBits, int maxBits, int pointsPerOctave) {
+        List<Integer> crossovers = new ArrayList<Integer>();
+        boolean fastWins = false;
+        int prevBits = 0;
+        for (int octave=minBits; octave<=maxBits/2; octave*=2) {
+            for (int i=0; i<=pointsPerOctave; i++) {
+                int bitLength = i<pointsPerOctave ? octave+octave*i/pointsPerOctave : 2*octave-32;
+                bitLength = bitLength / 32 * 32;
+                BigInteger a = random(aFactor*bitLength);
+                BigInteger b = random(bitLength);
+                boolean fast = time(op, a, b, bitLength) < time(op, a, b, NO_THRESHOLD);
+                if (fast != fastWins) {
+                    // prefer a power of two as the crossover point if there is one in between
+                    int pow2 = Integer.highestOneBit(bitLength);
+                    crossovers.add(prevBits>0 && prevBits<pow2 ? pow2 : bitLength);
+                    fastWins = fast;
+                }
+                prevBits = bitLength;
+            }
+        }
+        // beyond the measured range, assume the asymptotically faster algorithm wins
+        if (!fastWins)
+            crossovers.add(2*prevBits);
+
+        int[] result = new int[crossovers.size()];
+        for (int i=0; i<result.length; i++)
+            result[i] = crossovers.get(i);
+        return result;
+    }
+
+    /** Finds the Newton threshold that minimizes the time for a Barrett division. */
+    private static int calibrateNewton() {
+        BigInteger.BARRETT_CROSSOVERS = ALWAYS;
+        BigInteger a = random(1<<18);
+        BigInteger b = random(1<<17);
+        Op op = new Op() {
+            Object run(BigInteger a, BigInteger b, int threshold) {
+                BigInteger.NEWTON_THRESHOLD = threshold;
+                return a.divideAndRemainder(b);
+            }
+        };
+        int best = 0;
+        long bestTime = Long.MAX_VALUE;
+        for (int threshold=25; threshold<=12800; threshold*=2) {
+            long t = time(op, a, b, threshold);
+            if (t < bestTime) {
+                bestTime = t;
+                best = threshold;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Runs an operation repeatedly for at least {@link #MIN_MEASURE_DURATION}
+     * and at least three times.
+     * @return the shortest running time in nanoseconds
+     */
+    private static long time(Op op, BigInteger a, BigInteger b, int threshold) {
+        sink = op.run(a, b, threshold);   // one run in case the code path is new to the JIT
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (int i=0; i<3 || total<MIN_MEASURE_DURATION; i++) {
+            long tStart = System.nanoTime();
+            sink = op.run(a, b, threshold);
+            long t = System.nanoTime() - tStart;
+            best = Math.min(best, t);
+            total += t;
+        }
+        return best;
+    }
+
+    /** Returns a random positive number that is exactly <code>bitLength</code> bits long. */
+    private static BigInteger random(int bitLength) {
+        return new BigInteger(bitLength, rng).setBit(bitLength-1);
+    }
+
+    private static void report(String name, int value) {
+        System.out.println(name + " = " + value);
+    }
+
+    private static void report(String name, int[] values) {
+        StringBuilder buf = new StringBuilder();
+        for (int i=0; i<values.length; i++)
+            buf.append(i>0 ? ", " : "").append(values[i]);
+        System.out.println(name + " = " + buf);
+    }
+
+    /** An operation whose running time depends on a threshold. */
+    private static abstract class Op {
+        abstract Object run(BigInteger a, BigInteger b, int threshold);
+    }
+}
@@ -0,0 +1,90 @@
+package bignums;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class BigIntegerAccumulatorTest {
+
+    @Test
+    public void testRandomOperations() {
+        Random rng = new Random();
+        for (int round=0; round<50; round++) {
+            int maxBits = 1 << rng.nextInt(13);
+            BigInteger expected = random(rng, maxBits);
+            BigIntegerAccumulator acc = round%2==0 ? new BigIntegerAccumulator(expected) : new BigIntegerAccumulator();
+            if (round%2 != 0)
+                expected = BigInteger.ZERO;
+            for (int i=0; i<200; i++) {
+                BigInteger a = random(rng, maxBits);
+                BigInteger b = random(rng, maxBits);
+                switch (rng.nextInt(3)) {
+                    case 0:
+                        acc.add(a);
+                        expected = expected.add(a);
+                        break;
+                    case 1:
+                        acc.subtract(a);
+                        expected = expected.subtract(a);
+                        break;
+                    default:
+                        acc.addProduct(a, b);
+                        expected = expected.add(a.multiply(b));
+                }
+                assertEquals(expected.signum(), acc.signum());
+                assertEquals(expected, acc.toBigInteger());
+            }
+        }
+    }
+
+    @Test
+    public void testCancellation() {
+        BigInteger a = BigInteger.ONE.shiftLeft(1000).subtract(BigInteger.ONE);
+        BigIntegerAccumulator acc = new BigIntegerAccumulator();
+        acc.add(a);
+        BigInteger snapshot = acc.toBigInteger();
+        acc.subtract(a);
+        assertEquals(0, acc.signum());
+        assertEquals(BigInteger.ZERO, acc.toBigInteger());
+        assertEquals(a, snapshot);
+
+        acc.subtract(BigInteger.ONE);
+        acc.addProduct(a, a.negate());
+        assertEquals(a.multiply(a).add(BigInteger.ONE).negate(), acc.toBigInteger());
+        acc.addProduct(a.negate(), a.negate());
+        assertEquals(BigInteger.ONE.negate(), acc.toBigInteger());
+
+        acc.clear();
+        acc.add(BigInteger.valueOf(5));
+        assertEquals(BigInteger.valueOf(5), acc.toBigInteger());
+    }
+
+    @Test
+    public void testSnapshotUnchanged() {
+        // 2^100 fills its buffer exactly, which the snapshot must not share
+        BigInteger pow = BigInteger.ONE.shiftLeft(100);
+        BigIntegerAccumulator acc = new BigIntegerAccumulator(pow);
+        BigInteger snapshot = acc.toBigInteger();
+        acc.subtract(BigInteger.ONE);
+        assertEquals(pow, snapshot);
+
+        Random rng = new Random();
+        BigInteger expected = BigInteger.ZERO;
+        acc.clear();
+        for (int i=0; i<500; i++) {
+            BigInteger a = random(rng, 200);
+            acc.add(a);
+            expected = expected.add(a);
+            snapshot = acc.toBigInteger();
+            acc.addProduct(a, random(rng, 200));
+            acc.subtract(random(rng, 300));
+            assertEquals(expected, snapshot);
+            expected = acc.toBigInteger();
+        }
+    }
+
+    private BigInteger random(Random rng, int maxBits) {
+        BigInteger x = new BigInteger(rng.nextInt(maxBits)+1, rng);
+        return rng.nextBoolean() ? x : x.negate();
+    }
+}
@@ -5,9 +5,17 @@ import static bignums.BigInteger.ZERO;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 
 public class BigIntegerTestOld {
@@ -26,17 +34,557 @@ public class BigIntegerTestOld {
     }
 
     @Test
-    public void testSquare() throws SecurityException, NoSuchMethodException, IllegalArgumentException, IllegalAccessException, InvocationTargetException {
-        Method squareMethod = BigInteger.class.getDeclaredMethod("square");
-        squareMethod.setAccessible(true);
-
+    public void testSquare() {
         // test different size numbers to cover all algorithms used by BigInteger
         for (int i=2; i<1000000; i=i*3/2) {
             BigInteger a = THREE.pow(i);
-            BigInteger c1 = (BigInteger)squareMethod.invoke(a);
+            BigInteger c1 = a.square();
             BigInteger c2 = THREE.pow(2*i);
             assertEquals(c2, c1);
+
+            // multiply should detect equal magnitudes
+            BigInteger b = new BigInteger(a.toByteArray());
+            assertEquals(c2, a.multiply(b));
+            assertEquals(c2.negate(), a.multiply(b.negate()));
+            assertEquals(c2, a.negate().multiply(a.negate()));
+            assertEquals(c2, a.parallelMultiply(a));
+        }
+    }
+
+    @Test
+    public void testMultiplyAdd() {
+        Random rng = new Random();
+        for (int i=0; i<3000; i++) {
+            int maxBits = 1 << rng.nextInt(13);
+            BigInteger a = randomBigInteger(rng, maxBits, false);
+            BigInteger b = randomBigInteger(rng, maxBits, false);
+            BigInteger c = randomBigInteger(rng, 1 << rng.nextInt(14), false);
+            assertEquals(a.multiply(b).add(c), a.multiplyAdd(b, c));
+            assertEquals(ZERO, a.multiplyAdd(b, a.multiply(b).negate()));
+        }
+
+        // carries that propagate through the whole result
+        BigInteger allOnes = ONE.shiftLeft(3200).subtract(ONE);
+        assertEquals(allOnes.multiply(allOnes).add(allOnes), allOnes.multiplyAdd(allOnes, allOnes));
+        assertEquals(ONE.shiftLeft(3200), allOnes.multiplyAdd(ONE, ONE));
+    }
+
+    @Test
+    public void testParallelMultiply() {
+        Random rng = new Random();
+        // test different size numbers to cover all algorithms used by BigInteger
+        for (int i=2; i<2000000; i=i*3/2) {
+            BigInteger a = randomBigInteger(rng, i, false);
+            BigInteger b = randomBigInteger(rng, i, false);
+            assertEquals(a.multiply(b), a.parallelMultiply(b));
+        }
+    }
+
+    @Test
+    public void testParallelMultiplyForks() throws Exception {
+        final Random rng = new Random();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // a small threshold so Karatsuba (50 to 74 ints) and Toom-Cook fork their sub-products
+            BigInteger.setParallelMultiplyThreshold(8);
+            for (int i=1600; i<400000; i=i*3/2) {
+                final BigInteger a = randomBigInteger(rng, i, false).setBit(i);
+                final BigInteger b = randomBigInteger(rng, i, false).setBit(i);
+                assertEquals(a.multiply(b), a.parallelMultiply(b));
+                assertEquals(a.multiply(b), pool.submit(new Callable<BigInteger>() {
+                    public BigInteger call() {
+                        return a.parallelMultiply(b);
+                    }
+                }).get());
+            }
+        } finally {
+            BigInteger.setParallelMultiplyThreshold(0);
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelSchönhageStrassen() {
+        Random rng = new Random();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i=100000; i<2000000; i=i*3/2) {
+                BigInteger a = randomBigInteger(rng, i, false);
+                BigInteger b = randomBigInteger(rng, i, false);
+                BigInteger.setSchönhageStrassenParallelism(null, 0);
+                BigInteger c1 = a.multiplySchönhageStrassen(a, b);
+                BigInteger s1 = a.multiplySchönhageStrassen(a, a);
+                BigInteger.setSchönhageStrassenParallelism(pool, 0);
+                BigInteger c2 = a.multiplySchönhageStrassen(a, b);
+                BigInteger s2 = a.multiplySchönhageStrassen(a, a);
+                assertEquals(c1, c2);
+                assertEquals(s1, s2);
+            }
+
+            // squaring above the last Schönhage-Strassen square crossover
+            for (int bits=1200000; bits<3000000; bits=bits*3/2) {
+                BigInteger a = new BigInteger(bits, rng).setBit(bits-1);
+                if (bits%2 == 0)
+                    a = a.negate();
+                BigInteger.setSchönhageStrassenParallelism(null, 0);
+                BigInteger s1 = a.square();
+                BigInteger.setSchönhageStrassenParallelism(pool, 0);
+                BigInteger s2 = a.square();
+                BigInteger s3 = a.multiply(new BigInteger(a.toByteArray()));
+                assertEquals(s1, s2);
+                assertEquals(s1, s3);
+                assertTrue(Arrays.equals(s1.toByteArray(), s2.toByteArray()));
+            }
+        } finally {
+            BigInteger.setSchönhageStrassenParallelism(null, 0);
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testThresholds() {
+        Properties defaults = BigInteger.getThresholds();
+        try {
+            // small thresholds and crossovers so all algorithms are used on moderately sized inputs
+            Properties props = new Properties();
+            props.setProperty("karatsuba", "8");
+            props.setProperty("toomcook", "20");
+            props.setProperty("karatsuba.square", "8");
+            props.setProperty("toomcook.square", "20");
+            props.setProperty("burnikelziegler", "8");
+            props.setProperty("newton", "50");
+            props.setProperty("schoenhagestrassen", "8192, 16384, 20000");
+            props.setProperty("schoenhagestrassen.square", "8192");
+            props.setProperty("barrett", "invalid");
+            BigInteger.setThresholds(props);
+            assertEquals(8, BigInteger.KARATSUBA_THRESHOLD);
+            assertEquals("8192,16384,20000", BigInteger.getThresholds().getProperty("schoenhagestrassen"));
+            assertEquals(defaults.getProperty("barrett"), BigInteger.getThresholds().getProperty("barrett"));
+
+            Random rng = new Random();
+            for (int i=2; i<100000; i=i*3/2) {
+                BigInteger a = randomBigInteger(rng, i, false);
+                BigInteger b = randomBigInteger(rng, i, false);
+                BigInteger c = a.multiply(b);
+                BigInteger.setThresholds(defaults);
+                assertEquals(a.multiply(b), c);
+                assertEquals(a.multiply(a), a.pow(2));
+                BigInteger.setThresholds(props);
+                assertEquals(a.multiply(a), a.pow(2));
+                if (b.signum() != 0) {
+                    BigInteger[] qr = c.add(a).divideAndRemainder(b);
+                    assertEquals(c.add(a), b.multiply(qr[0]).add(qr[1]));
+                    assertTrue(qr[1].abs().compareTo(b.abs()) < 0);
+                }
+            }
+        } finally {
+            BigInteger.setThresholds(defaults);
+        }
+    }
+
+    @Test
+    public void testModPowMontgomery() {
+        int defaultThreshold = BigInteger.MONTGOMERY_THRESHOLD;
+        try {
+            Random rng = new Random();
+            for (int i=0; i<300; i++) {
+                BigInteger.MONTGOMERY_THRESHOLD = 4;
+                BigInteger m = new BigInteger(1+rng.nextInt(3000), rng).setBit(0);
+                BigInteger a = randomBigInteger(rng, 1+rng.nextInt(3100), i%2==0);
+                BigInteger e = new BigInteger(rng.nextInt(200), rng);
+                BigInteger r = a.modPow(e, m);
+                BigInteger.MONTGOMERY_THRESHOLD = Integer.MAX_VALUE;
+                assertEquals(a.modPow(e, m), r);
+            }
+        } finally {
+            BigInteger.MONTGOMERY_THRESHOLD = defaultThreshold;
+        }
+    }
+
+    @Test
+    public void testGcd() {
+        int defaultThreshold = BigInteger.HALF_GCD_THRESHOLD;
+        try {
+            Random rng = new Random();
+            for (int i=0; i<500; i++) {
+                java.math.BigInteger g = new java.math.BigInteger(1+rng.nextInt(i%3==0 ? 3000 : 20), rng);
+                java.math.BigInteger a = new java.math.BigInteger(rng.nextInt(20000), rng).multiply(g);
+                java.math.BigInteger b = new java.math.BigInteger(rng.nextInt(i%2==0 ? 20000 : 3000), rng).multiply(g);
+                if (i%7 == 0)
+                    b = a.add(g);
+                if (i%11 == 0)
+                    b = b.negate();
+                BigInteger x = new BigInteger(a.toByteArray());
+                BigInteger y = new BigInteger(b.toByteArray());
+                String expected = a.gcd(b).toString();
+
+                BigInteger.HALF_GCD_THRESHOLD = 4 + rng.nextInt(10);
+                assertEquals(expected, x.gcd(y).toString());
+                BigInteger.HALF_GCD_THRESHOLD = Integer.MAX_VALUE;
+                assertEquals(expected, x.gcd(y).toString());
+            }
+        } finally {
+            BigInteger.HALF_GCD_THRESHOLD = defaultThreshold;
+        }
+    }
+
+    @Test
+    public void testGcdExtended() {
+        int defaultThreshold = BigInteger.HALF_GCD_THRESHOLD;
+        try {
+            Random rng = new Random();
+            for (int i=0; i<500; i++) {
+                BigInteger.HALF_GCD_THRESHOLD = i%2==0 ? 4+rng.nextInt(10) : defaultThreshold;
+                BigInteger g = new BigInteger(1+rng.nextInt(i%3==0 ? 2000 : 20), rng);
+                BigInteger a = randomBigInteger(rng, 1+rng.nextInt(12000), rng.nextBoolean()).multiply(g);
+                BigInteger b = randomBigInteger(rng, 1+rng.nextInt(i%4==0 ? 12000 : 3000), rng.nextBoolean()).multiply(g);
+                if (i%7 == 0)
+                    b = a.add(g);
+                BigInteger[] result = a.gcdExtended(b);
+                assertEquals(a.gcd(b), result[0]);
+                assertEquals(result[0], a.multiply(result[1]).add(b.multiply(result[2])));
+                if (b.signum() != 0) {
+                    assertTrue(result[1].signum() >= 0);
+                    assertTrue(result[1].compareTo(b.abs().divide(result[0])) < 0);
+                }
+
+                BigInteger m = b.abs().add(THREE);
+                if (a.gcd(m).equals(ONE))
+                    assertEquals(ONE, a.multiply(a.modInverse(m)).mod(m));
+                else
+                    try {
+                        a.modInverse(m);
+                        fail("ArithmeticException expected");
+                    } catch (ArithmeticException e) {
+                    }
+            }
+        } finally {
+            BigInteger.HALF_GCD_THRESHOLD = defaultThreshold;
+        }
+
+        BigInteger seven = BigInteger.valueOf(7);
+        BigInteger[] result = ZERO.gcdExtended(ZERO);
+        assertEquals(ZERO, result[0]);
+        result = seven.negate().gcdExtended(ZERO);
+        assertEquals(seven, result[0]);
+        assertEquals(ONE.negate(), result[1]);
+        assertEquals(ZERO, result[2]);
+        result = ZERO.gcdExtended(seven.negate());
+        assertEquals(seven, result[0]);
+        assertEquals(ZERO, result[1]);
+        assertEquals(ONE.negate(), result[2]);
+        result = BigInteger.valueOf(240).gcdExtended(BigInteger.valueOf(-46));
+        assertEquals(BigInteger.valueOf(2), result[0]);
+        assertEquals(BigInteger.valueOf(14), result[1]);
+        assertEquals(BigInteger.valueOf(73), result[2]);
+    }
+
+    @Test
+    public void testSqrt() {
+        Random rng = new Random();
+        for (int i=0; i<1000; i++) {
+            BigInteger n = randomBigInteger(rng, 1+rng.nextInt(i%10==0 ? 20000 : 300), true);
+            if (i%3 == 0)
+                n = n.shiftLeft(rng.nextInt(100));
+            BigInteger[] result = n.sqrtAndRemainder();
+            BigInteger s = result[0];
+            assertEquals(n, s.square().add(result[1]));
+            assertTrue(result[1].signum() >= 0);
+            assertTrue(result[1].compareTo(s.shiftLeft(1)) <= 0);
+            assertEquals(s, n.sqrt());
+            assertEquals(result[1].signum() == 0, n.isPerfectSquare());
+
+            BigInteger square = s.square();
+            assertTrue(square.isPerfectSquare());
+            assertEquals(s, square.sqrt());
+            if (s.signum() > 0) {
+                assertEquals(s.subtract(ONE), square.subtract(ONE).sqrt());
+                assertFalse(square.subtract(ONE).isPerfectSquare() && s.compareTo(ONE) > 0);
+                assertFalse(square.add(ONE).isPerfectSquare());
+                assertFalse(square.shiftLeft(1).isPerfectSquare());
+            }
+        }
+
+        for (long n=0; n<2000; n++) {
+            long s = (long)Math.floor(Math.sqrt(n));
+            assertEquals(BigInteger.valueOf(s), BigInteger.valueOf(n).sqrt());
+            assertEquals(s*s == n, BigInteger.valueOf(n).isPerfectSquare());
+        }
+        BigInteger max = BigInteger.valueOf(Long.MAX_VALUE);
+        assertEquals(BigInteger.valueOf(3037000499L), max.sqrt());
+        assertEquals(BigInteger.valueOf(4294967295L), max.shiftLeft(1).add(ONE).sqrt());
+        assertFalse(BigInteger.valueOf(-4).isPerfectSquare());
+        try {
+            BigInteger.valueOf(-1).sqrt();
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+        }
+    }
+
+    @Test
+    public void testNthRoot() {
+        Random rng = new Random();
+        for (int i=0; i<500; i++) {
+            int k = 1 + rng.nextInt(i%5==0 ? 300 : 12);
+            BigInteger n = randomBigInteger(rng, 1+rng.nextInt(i%10==0 ? 20000 : 2000), (k&1)==0 || rng.nextBoolean());
+            BigInteger[] result = n.nthRootAndRemainder(k);
+            BigInteger r = result[0];
+            assertEquals(n, r.pow(k).add(result[1]));
+            assertTrue(result[1].signum()*n.signum() >= 0);
+            assertTrue(r.abs().add(ONE).pow(k).compareTo(n.abs()) > 0);
+            assertEquals(r, n.nthRoot(k));
+
+            BigInteger power = r.pow(k);
+            assertEquals(r, power.nthRoot(k));
+            if (k > 1)
+                assertTrue(power.isPerfectPower());
+            if (r.signum() > 0)
+                assertEquals(r.subtract(ONE), power.subtract(ONE).nthRoot(k));
+        }
+
+        for (int n=-3000; n<=3000; n++) {
+            boolean perfectPower = n==0 || n==1 || n==-1;
+            for (int k=2; k<12 && !perfectPower; k++)
+                if (n>0 || (k&1)==1)
+                    perfectPower = BigInteger.valueOf(n).nthRootAndRemainder(k)[1].signum() == 0;
+            assertEquals(perfectPower, BigInteger.valueOf(n).isPerfectPower());
+        }
+        for (int i=0; i<50; i++) {
+            BigInteger n = randomBigInteger(rng, 1+rng.nextInt(i%5==0 ? 20 : 2), true).add(BigInteger.valueOf(2));
+            int k = 2 + rng.nextInt(i%2==0 ? 2000 : 20);
+            BigInteger power = n.pow(k);
+            assertTrue(power.isPerfectPower());
+            // -n^k is an odd power if k has an odd prime factor or n is an odd power
+            boolean oddFactor = (k >> Integer.numberOfTrailingZeros(k)) > 1;
+            assertEquals(oddFactor || n.negate().isPerfectPower(), power.negate().isPerfectPower());
+            assertFalse(power.add(ONE).isPerfectPower() && k > 3);
+        }
+
+        BigInteger p = BigInteger.probablePrime(300, rng);
+        BigInteger q = BigInteger.probablePrime(500, rng);
+        assertFalse(p.multiply(q).isPerfectPower());
+        assertFalse(p.pow(3).multiply(q.pow(5)).isPerfectPower());
+        assertFalse(p.pow(15).multiply(q.pow(10)).shiftLeft(7).isPerfectPower());
+        assertTrue(p.pow(15).multiply(q.pow(10)).shiftLeft(15).isPerfectPower());
+        assertTrue(p.pow(21).multiply(q.pow(14)).negate().isPerfectPower());
+
+        assertEquals(BigInteger.valueOf(-3), BigInteger.valueOf(-30).nthRoot(3));
+        assertEquals(BigInteger.valueOf(-3), BigInteger.valueOf(-30).nthRootAndRemainder(3)[1]);
+        assertEquals(ONE, BigInteger.valueOf(Long.MAX_VALUE).nthRoot(63));
+        assertEquals(BigInteger.valueOf(2), BigInteger.valueOf(Long.MAX_VALUE).nthRoot(62));
+        assertFalse(BigInteger.valueOf(2).isPerfectPower());
+        try {
+            BigInteger.valueOf(-8).nthRoot(2);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+        }
+        try {
+            BigInteger.valueOf(8).nthRoot(0);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+        }
+    }
+
+    @Test
+    public void testFactorial() {
+        BigInteger factorial = ONE;
+        BigInteger[] doubleFactorials = {ONE, ONE};
+        for (int n=0; n<3000; n++) {
+            if (n > 0)
+                factorial = factorial.multiply(BigInteger.valueOf(n));
+            if (n > 1)
+                doubleFactorials[n&1] = doubleFactorials[n&1].multiply(BigInteger.valueOf(n));
+            if (n<300 || n%97==0) {
+                assertEquals(factorial, BigInteger.factorial(n));
+                assertEquals(doubleFactorials[n&1], BigInteger.doubleFactorial(n));
+            }
+        }
+
+        int n = 100000;
+        BigInteger expected = BigInteger.doubleFactorial(n).multiply(BigInteger.doubleFactorial(n-1));
+        assertEquals(expected, BigInteger.factorial(n));
+        assertEquals(expected.multiply(BigInteger.valueOf(n+1)), BigInteger.factorial(n+1));
+
+        try {
+            BigInteger.factorial(-1);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+        }
+        try {
+            BigInteger.doubleFactorial(-1);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+        }
+    }
+
+    @Test
+    public void testBinomial() {
+        BigInteger[] row = {ONE};
+        for (int n=0; n<200; n++) {
+            assertEquals(ZERO, BigInteger.binomial(n, -1));
+            assertEquals(ZERO, BigInteger.binomial(n, n+1));
+            for (int k=0; k<=n; k++)
+                assertEquals(row[k], BigInteger.binomial(n, k));
+            BigInteger[] next = new BigInteger[n+2];
+            next[0] = next[n+1] = ONE;
+            for (int k=1; k<=n; k++)
+                next[k] = row[k-1].add(row[k]);
+            row = next;
+        }
+
+        Random rng = new Random();
+        for (int i=0; i<50; i++) {
+            int n = rng.nextInt(i%10==0 ? 50000 : 5000);
+            int k = rng.nextInt(n+1) / (i%2==0 ? 1 : 1+rng.nextInt(1000));
+            BigInteger expected = BigInteger.factorial(n).divide(BigInteger.factorial(k).multiply(BigInteger.factorial(n-k)));
+            assertEquals(expected, BigInteger.binomial(n, k));
+
+            int[] parts = new int[1+rng.nextInt(6)];
+            BigInteger denominator = ONE;
+            int sum = 0;
+            for (int j=0; j<parts.length; j++) {
+                parts[j] = rng.nextInt(1000);
+                sum += parts[j];
+                denominator = denominator.multiply(BigInteger.factorial(parts[j]));
+            }
+            assertEquals(BigInteger.factorial(sum).divide(denominator), BigInteger.multinomial(parts));
+        }
+
+        assertEquals(ONE, BigInteger.multinomial());
+        assertEquals(ONE, BigInteger.multinomial(0, 0, 7));
+        assertEquals(BigInteger.valueOf(6), BigInteger.multinomial(1, 1, 1));
+        assertEquals(BigInteger.valueOf(1260), BigInteger.multinomial(4, 2, 3));
+        try {
+            BigInteger.binomial(-1, 0);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+        }
+        try {
+            BigInteger.multinomial(3, -1);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+        }
+    }
+
+    @Test
+    public void testProduct() {
+        Random rng = new Random();
+        for (int i=0; i<100; i++) {
+            int n = rng.nextInt(i%20==0 ? 2000 : 50);
+            BigInteger[] values = new BigInteger[n];
+            for (int j=0; j<n; j++) {
+                values[j] = randomBigInteger(rng, 1+rng.nextInt(j%100==7 ? 50000 : 500), false);
+                if (values[j].signum() == 0)
+                    values[j] = ONE;
+            }
+            int from = rng.nextInt(n/4+1);
+            int to = n - rng.nextInt(n/4+1);
+            to = Math.max(from, to);
+            BigInteger expected = ONE;
+            for (int j=from; j<to; j++)
+                expected = expected.multiply(values[j]);
+            assertEquals(expected, BigInteger.product(values, from, to));
+            assertEquals(expected, BigInteger.parallelProduct(values, from, to));
+            List<BigInteger> list = Arrays.asList(values).subList(from, to);
+            assertEquals(expected, BigInteger.product(list));
+            assertEquals(expected, BigInteger.parallelProduct(list));
+        }
+
+        BigInteger[] values = {BigInteger.valueOf(-3), BigInteger.TEN, ZERO, BigInteger.valueOf(7)};
+        assertEquals(BigInteger.valueOf(-30), BigInteger.product(values, 0, 2));
+        assertEquals(ZERO, BigInteger.product(values, 0, 4));
+        assertEquals(ONE, BigInteger.product(values, 3, 3));
+        assertEquals(ONE, BigInteger.product(new ArrayList<BigInteger>()));
+        try {
+            BigInteger.product(values, 2, 5);
+            fail("IndexOutOfBoundsException expected");
+        } catch (IndexOutOfBoundsException e) {
+        }
+    }
+
+    @Test
+    public void testToString() {
+        Random rng = new Random();
+        for (int i=0; i<300; i++) {
+            BigInteger a = randomBigInteger(rng, 1<<(i%18), false);
+            int radix = i%2==0 ? 10 : 2+rng.nextInt(35);
+            java.math.BigInteger b = new java.math.BigInteger(a.toByteArray());
+            assertEquals(b.toString(radix), a.toString(radix));
+        }
+
+        // numbers whose digits contain long runs of zeros and nines
+        for (int radix : new int[] {2, 10, 16, 36}) {
+            for (int n : new int[] {1000, 12345, 100000}) {
+                BigInteger a = BigInteger.valueOf(radix).pow(n);
+                java.math.BigInteger b = java.math.BigInteger.valueOf(radix).pow(n);
+                assertEquals(b.toString(radix), a.toString(radix));
+                assertEquals(b.subtract(java.math.BigInteger.ONE).negate().toString(radix), a.subtract(BigInteger.ONE).negate().toString(radix));
+                assertEquals(b.add(java.math.BigInteger.ONE).toString(radix), a.add(BigInteger.ONE).toString(radix));
+            }
+        }
+    }
+
+    @Test
+    public void testParse() {
+        Random rng = new Random();
+        for (int i=0; i<300; i++) {
+            java.math.BigInteger a = new java.math.BigInteger(1<<(i%18), rng);
+            if (rng.nextBoolean())
+                a = a.negate();
+            int radix = i%2==0 ? 10 : 2+rng.nextInt(35);
+            String s = a.toString(radix);
+            assertEquals(a, new java.math.BigInteger(new BigInteger(s, radix).toByteArray()));
+            if (radix == 10 && a.signum() >= 0)
+                assertEquals(a, new java.math.BigInteger(new BigInteger(s.toCharArray(), 1, s.length()).toByteArray()));
+        }
+
+        // leading zeros and long runs of zeros
+        for (int n : new int[] {1000, 12345, 100000}) {
+            BigInteger a = BigInteger.TEN.pow(n);
+            assertEquals(a, new BigInteger(a.toString()));
+            assertEquals(a.add(BigInteger.ONE), new BigInteger("00000" + a.add(BigInteger.ONE).toString()));
+            assertEquals(a.subtract(BigInteger.ONE).negate(), new BigInteger(a.subtract(BigInteger.ONE).negate().toString()));
+        }
+
+        StringBuilder digits = new StringBuilder();
+        for (int i=0; i<10000; i++)
+            digits.append((char)('0' + rng.nextInt(10)));
+        digits.setCharAt(rng.nextInt(10000), 'x');
+        try {
+            new BigInteger(digits.toString());
+            fail("NumberFormatException expected");
+        } catch (NumberFormatException e) {
+        }
+    }
+
+    @Test
+    public void testDoubleValue() {
+        Random rng = new Random();
+        for (int i=0; i<20000; i++) {
+            java.math.BigInteger a = new java.math.BigInteger(1+rng.nextInt(1100), rng);
+            if (i%4 == 0) {
+                // halfway cases and their neighbours
+                int bits = rng.nextBoolean() ? 54 : 25;
+                a = new java.math.BigInteger(bits, rng).setBit(bits-1).setBit(0).shiftLeft(rng.nextInt(1000));
+                a = a.add(java.math.BigInteger.valueOf(rng.nextInt(3)-1));
+            }
+            if (rng.nextBoolean())
+                a = a.negate();
+            BigInteger b = new BigInteger(a.toByteArray());
+            assertEquals(a.doubleValue(), b.doubleValue(), 0);
+            assertEquals(a.floatValue(), b.floatValue(), 0);
+
+            int scale = i%3==0 ? rng.nextInt(30)-15 : rng.nextInt(800)-400;
+            java.math.BigDecimal c = new java.math.BigDecimal(a, scale);
+            BigDecimal d = new BigDecimal(b, scale);
+            assertEquals(c.doubleValue(), d.doubleValue(), 0);
+            assertEquals(c.floatValue(), d.floatValue(), 0);
         }
+        assertEquals(Double.MIN_VALUE, new BigDecimal("4.9e-324").doubleValue(), 0);
+        assertEquals(0.0, new BigDecimal("2.4e-324").doubleValue(), 0);
+        assertEquals(Double.MAX_VALUE, new BigDecimal("1.7976931348623157e308").doubleValue(), 0);
+        assertEquals(Double.NEGATIVE_INFINITY, ONE.shiftLeft(1024).negate().doubleValue(), 0);
+        assertEquals(Float.POSITIVE_INFINITY, ONE.shiftLeft(128).floatValue(), 0);
     }
 
     @Test
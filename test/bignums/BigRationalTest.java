@@ -113,6 +113,11 @@ public class BigRationalTest {
         passedAll &= testEquals("Divide-3", BigRational.valueOf("-2/5").divide(BigRational.valueOf("-3/5")), "2/3");
         passedAll &= testTrue("DoubleValue-1", BigRational.valueOf("0.1").doubleValue() == 0.1);
         passedAll &= testTrue("DoubleValue-2", BigRational.valueOf("1.1").doubleValue() == 1.1);
+        passedAll &= testTrue("DoubleValue-3", BigRational.valueOf("-1/3").doubleValue() == -1.0/3);
+        passedAll &= testTrue("DoubleValue-4", BigRational.valueOf("1/3").floatValue() == 1.0f/3);
+        passedAll &= testTrue("DoubleValue-5", BigRational.valueOf("1e-320").doubleValue() == 1e-320);
+        passedAll &= testTrue("DoubleValue-6", BigRational.valueOf("1e309").doubleValue() == Double.POSITIVE_INFINITY);
+        passedAll &= testTrue("DoubleValue-7", BigRational.valueOf("0").doubleValue() == 0.0);
         passedAll &= testTrue("IntValue-1", BigRational.valueOf("7/3").intValue() == 2);
         passedAll &= testTrue("IntValue-2", BigRational.valueOf("8/3").intValue() == 2);
         passedAll &= testTrue("IntValue-2", BigRational.valueOf("9/3").intValue() == 3);
@@ -0,0 +1,71 @@
+package bignums;
+
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class CrtContextTest {
+
+    @Test
+    public void testReconstruct() {
+        Random rng = new Random();
+        for (int round=0; round<100; round++) {
+            int k = rng.nextInt(round%10==0 ? 300 : 20);
+            BigInteger[] moduli = new BigInteger[k];
+            BigInteger product = BigInteger.ONE;
+            for (int i=0; i<k; i++) {
+                // coprime to the previous moduli, but mostly not prime
+                do {
+                    moduli[i] = new BigInteger(1+rng.nextInt(i%50==3 ? 3000 : 64), rng).add(BigInteger.ONE);
+                } while (!moduli[i].gcd(product).equals(BigInteger.ONE));
+                product = product.multiply(moduli[i]);
+            }
+            CrtContext crt = new CrtContext(moduli);
+            assertEquals(product, crt.getProduct());
+            assertArrayEquals(moduli, crt.getModuli());
+            for (int j=0; j<5; j++) {
+                BigInteger x = new BigInteger(product.bitLength()+10, rng).mod(product);
+                BigInteger[] residues = crt.mod(x);
+                assertEquals(x, crt.reconstruct(residues));
+
+                // unreduced and negative residues
+                for (int i=0; i<k; i++)
+                    residues[i] = residues[i].add(moduli[i].multiply(BigInteger.valueOf(rng.nextInt(7)-3)));
+                assertEquals(x, crt.reconstruct(residues));
+            }
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        CrtContext empty = new CrtContext(new BigInteger[0]);
+        assertEquals(BigInteger.ONE, empty.getProduct());
+        assertEquals(BigInteger.ZERO, empty.reconstruct(new BigInteger[0]));
+
+        BigInteger[] moduli = {BigInteger.valueOf(3), BigInteger.ONE, BigInteger.valueOf(5), BigInteger.valueOf(7)};
+        CrtContext crt = new CrtContext(moduli);
+        BigInteger[] residues = {BigInteger.valueOf(2), BigInteger.ZERO, BigInteger.valueOf(3), BigInteger.valueOf(2)};
+        assertEquals(BigInteger.valueOf(23), crt.reconstruct(residues));
+        assertEquals(BigInteger.valueOf(4), new CrtContext(new BigInteger[] {BigInteger.TEN}).reconstruct(
+                new BigInteger[] {BigInteger.valueOf(-6)}));
+
+        try {
+            crt.reconstruct(new BigInteger[3]);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testNotCoprime() {
+        BigInteger[] moduli = {BigInteger.valueOf(7), BigInteger.valueOf(15), BigInteger.valueOf(11), BigInteger.valueOf(6)};
+        try {
+            new CrtContext(moduli);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+            assertEquals("BigInteger: moduli not pairwise coprime", e.getMessage());
+        }
+    }
+}
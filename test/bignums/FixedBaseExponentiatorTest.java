@@ -0,0 +1,52 @@
+package bignums;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class FixedBaseExponentiatorTest {
+
+    @Test
+    public void testModPow() {
+        Random rng = new Random();
+        for (int round=0; round<100; round++) {
+            BigInteger m = new BigInteger(1+rng.nextInt(1000), rng).add(BigInteger.ONE);
+            if (round%5 != 0)
+                m = m.setBit(0);
+            BigInteger g = new BigInteger(m.bitLength()+10, rng);
+            int maxBits = 1 + rng.nextInt(600);
+            int teeth = 1 + rng.nextInt(8);
+            int tables = 1 + rng.nextInt(4);
+            FixedBaseExponentiator exp = new FixedBaseExponentiator(g, m, maxBits, teeth, tables);
+            assertEquals(m, exp.getModulus());
+            assertEquals(g.mod(m), exp.getBase());
+            for (int i=0; i<10; i++) {
+                // some exponents are longer than maxBits and use the fallback
+                BigInteger e = new BigInteger(rng.nextInt(maxBits+20), rng);
+                assertEquals(g.modPow(e, m), exp.modPow(e));
+            }
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        BigInteger p = BigInteger.valueOf(1000003);
+        BigInteger g = BigInteger.valueOf(2);
+        FixedBaseExponentiator exp = new FixedBaseExponentiator(g, p, 64);
+        assertEquals(BigInteger.ONE, exp.modPow(BigInteger.ZERO));
+        assertEquals(g, exp.modPow(BigInteger.ONE));
+        assertEquals(g.modPow(BigInteger.TEN.negate(), p), exp.modPow(BigInteger.TEN.negate()));
+        BigInteger allOnes = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        assertEquals(g.modPow(allOnes, p), exp.modPow(allOnes));
+
+        FixedBaseExponentiator zero = new FixedBaseExponentiator(p, p, 64, 3, 3);
+        assertEquals(BigInteger.ZERO, zero.modPow(BigInteger.TEN));
+        FixedBaseExponentiator one = new FixedBaseExponentiator(g, BigInteger.ONE, 64);
+        assertEquals(BigInteger.ZERO, one.modPow(BigInteger.TEN));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testInvalidTeeth() {
+        new FixedBaseExponentiator(BigInteger.TEN, BigInteger.valueOf(7), 64, 0, 1);
+    }
+}
@@ -0,0 +1,188 @@
+package bignums;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class ModulusContextTest {
+
+    @Test
+    public void testRandomOperations() {
+        Random rng = new Random();
+        for (int round=0; round<200; round++) {
+            BigInteger m = new BigInteger(1+rng.nextInt(2000), rng).add(BigInteger.ONE);
+            if (round%4 != 0)
+                m = m.setBit(0);
+            ModulusContext ctx = new ModulusContext(m);
+            assertEquals(m, ctx.getModulus());
+            for (int i=0; i<5; i++) {
+                BigInteger a = random(rng, m.bitLength()+64);
+                BigInteger b = random(rng, m.bitLength()+64);
+                BigInteger e = new BigInteger(rng.nextInt(300), rng);
+                assertEquals(a.modPow(e, m), ctx.modPow(a, e));
+                assertEquals(a.multiply(b).mod(m), ctx.modMultiply(a, b));
+                assertEquals(a.multiply(a).mod(m), ctx.modSquare(a));
+            }
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        BigInteger m = BigInteger.valueOf(1000003);
+        ModulusContext ctx = new ModulusContext(m);
+        BigInteger a = BigInteger.valueOf(12345);
+        assertEquals(BigInteger.ONE, ctx.modPow(a, BigInteger.ZERO));
+        assertEquals(a, ctx.modPow(a, BigInteger.ONE));
+        assertEquals(BigInteger.ZERO, ctx.modPow(m, BigInteger.TEN));
+        assertEquals(a.modPow(BigInteger.TEN.negate(), m), ctx.modPow(a, BigInteger.TEN.negate()));
+        assertEquals(BigInteger.ZERO, ctx.modMultiply(a, m.negate()));
+        assertEquals(BigInteger.ONE, ctx.modSquare(m.subtract(BigInteger.ONE)));
+
+        ModulusContext one = new ModulusContext(BigInteger.ONE);
+        assertEquals(BigInteger.ZERO, one.modPow(a, BigInteger.ZERO));
+        assertEquals(BigInteger.ZERO, one.modMultiply(a, a));
+    }
+
+    @Test
+    public void testModPowProduct() {
+        Random rng = new Random();
+        for (int round=0; round<100; round++) {
+            BigInteger m = new BigInteger(1+rng.nextInt(1000), rng).add(BigInteger.ONE);
+            if (round%5 != 0)
+                m = m.setBit(0);
+            int n = 1 + rng.nextInt(round%10==0 ? 64 : 6);
+            BigInteger[] bases = new BigInteger[n];
+            BigInteger[] exponents = new BigInteger[n];
+            BigInteger expected = BigInteger.ONE.mod(m);
+            for (int i=0; i<n; i++) {
+                bases[i] = random(rng, m.bitLength()+10);
+                exponents[i] = new BigInteger(rng.nextInt(1+rng.nextInt(800)), rng);
+                expected = expected.multiply(bases[i].modPow(exponents[i], m)).mod(m);
+            }
+            assertEquals(expected, BigInteger.modPowProduct(bases, exponents, m));
+        }
+
+        BigInteger p = BigInteger.valueOf(1000003);
+        BigInteger[] bases = {BigInteger.valueOf(2), BigInteger.valueOf(3), p};
+        BigInteger[] exponents = {BigInteger.TEN.negate(), BigInteger.ONE, BigInteger.ZERO};
+        BigInteger expected = bases[0].modPow(exponents[0], p).multiply(BigInteger.valueOf(3)).mod(p);
+        assertEquals(expected, BigInteger.modPowProduct(bases, exponents, p));
+        exponents[2] = BigInteger.ONE;
+        assertEquals(BigInteger.ZERO, BigInteger.modPowProduct(bases, exponents, p));
+        assertEquals(BigInteger.ONE, BigInteger.modPowProduct(new BigInteger[0], new BigInteger[0], p));
+
+        // a non-invertible base throws whether or not a zero base comes first
+        for (BigInteger m : new BigInteger[] {BigInteger.valueOf(9), BigInteger.valueOf(10)}) {
+            BigInteger f = m.testBit(0) ? BigInteger.valueOf(3) : BigInteger.valueOf(2);
+            BigInteger[][] cases = {
+                {BigInteger.ZERO, f}, {BigInteger.ONE, BigInteger.ONE.negate()},
+                {f, BigInteger.ZERO}, {BigInteger.ONE.negate(), BigInteger.ONE}};
+            for (int i=0; i<cases.length; i+=2) {
+                try {
+                    BigInteger.modPowProduct(cases[i], cases[i+1], m);
+                    fail("ArithmeticException expected");
+                } catch (ArithmeticException e) {
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testModInverseAll() {
+        Random rng = new Random();
+        for (int round=0; round<100; round++) {
+            BigInteger m = new BigInteger(1+rng.nextInt(1000), rng).nextProbablePrime();
+            if (round%4 == 0)
+                m = m.shiftLeft(1+rng.nextInt(3));
+            if (round%8 == 1)
+                m = new BigInteger(3000+rng.nextInt(2000), rng).setBit(0);   // values are inverted one by one
+            int n = rng.nextInt(round%10==0 ? 2000 : 20);
+            BigInteger[] values = new BigInteger[n];
+            for (int i=0; i<n; i++) {
+                do {
+                    values[i] = random(rng, m.bitLength()+10);
+                } while (!values[i].gcd(m).equals(BigInteger.ONE));
+            }
+            BigInteger[] inverses = BigInteger.modInverseAll(values, m);
+            assertEquals(n, inverses.length);
+            for (int i=0; i<n; i++)
+                assertEquals(values[i].modInverse(m), inverses[i]);
+            assertArrayEquals(inverses, BigInteger.parallelModInverseAll(values, m));
+        }
+
+        BigInteger[] values = {BigInteger.valueOf(3), BigInteger.valueOf(-4), BigInteger.ZERO};
+        assertArrayEquals(new BigInteger[] {BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO},
+                BigInteger.modInverseAll(values, BigInteger.ONE));
+        assertEquals(0, BigInteger.modInverseAll(new BigInteger[0], BigInteger.TEN).length);
+    }
+
+    @Test
+    public void testModInverseAllNotInvertible() {
+        BigInteger m = BigInteger.valueOf(1000003).multiply(BigInteger.valueOf(1000033));
+        BigInteger[] values = new BigInteger[1000];
+        for (int i=0; i<values.length; i++)
+            values[i] = BigInteger.valueOf(i+1);
+        values[700] = BigInteger.valueOf(1000033).negate();
+        values[900] = m;
+        ModulusContext ctx = new ModulusContext(m);
+        try {
+            ctx.modInverseAll(values);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+            assertEquals("BigInteger not invertible: values[700]", e.getMessage());
+        }
+        try {
+            ctx.parallelModInverseAll(values);
+            fail("ArithmeticException expected");
+        } catch (ArithmeticException e) {
+            assertEquals("BigInteger not invertible: values[700]", e.getMessage());
+        }
+    }
+
+    @Test(expected=ArithmeticException.class)
+    public void testNonPositiveModulus() {
+        new ModulusContext(BigInteger.ZERO);
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        Random rng = new Random();
+        final BigInteger m = new BigInteger(1024, rng).setBit(1023).setBit(0);
+        final ModulusContext ctx = new ModulusContext(m);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int t=0; t<8; t++) {
+                final long seed = t;
+                results.add(executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        Random rng = new Random(seed);
+                        for (int i=0; i<50; i++) {
+                            BigInteger a = new BigInteger(1024, rng);
+                            BigInteger e = new BigInteger(1024, rng);
+                            assertEquals(a.modPow(e, m), ctx.modPow(a, e));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results)
+                result.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private BigInteger random(Random rng, int maxBits) {
+        BigInteger x = new BigInteger(rng.nextInt(maxBits)+1, rng);
+        return rng.nextBoolean() ? x : x.negate();
+    }
+}
@@ -0,0 +1,51 @@
+package bignums;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class RadixPowerCacheTest {
+
+    @Test
+    public void testPow() {
+        for (int radix=Character.MIN_RADIX; radix<=Character.MAX_RADIX; radix++) {
+            BigInteger bigRadix = BigInteger.valueOf(radix);
+            for (int n : new int[] {0, 1, 2, 15, 16, 17, 255, 256, 257, 1000, 4097})
+                assertEquals(bigRadix.pow(n), RadixPowerCache.pow(radix, n));
+            for (int k=0; k<14; k++)
+                assertEquals(bigRadix.pow(1<<k), RadixPowerCache.squarePow(radix, k));
+        }
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int t=0; t<8; t++) {
+                final long seed = t;
+                results.add(executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        Random rng = new Random(seed);
+                        for (int i=0; i<200; i++) {
+                            int radix = 2 + rng.nextInt(35);
+                            int n = rng.nextInt(5000);
+                            assertEquals(BigInteger.valueOf(radix).pow(n), RadixPowerCache.pow(radix, n));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results)
+                result.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
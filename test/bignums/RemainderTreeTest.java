@@ -0,0 +1,54 @@
+package bignums;
+
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class RemainderTreeTest {
+
+    @Test
+    public void testMod() {
+        Random rng = new Random();
+        for (int round=0; round<100; round++) {
+            int k = rng.nextInt(round%10==0 ? 300 : 20);
+            BigInteger[] moduli = new BigInteger[k];
+            BigInteger product = BigInteger.ONE;
+            for (int i=0; i<k; i++) {
+                moduli[i] = new BigInteger(1+rng.nextInt(i%50==3 ? 5000 : 100), rng).add(BigInteger.ONE);
+                product = product.multiply(moduli[i]);
+            }
+            RemainderTree tree = new RemainderTree(moduli);
+            assertEquals(product, tree.getProduct());
+            assertArrayEquals(moduli, tree.getModuli());
+            for (int j=0; j<5; j++) {
+                // values both smaller and much larger than the product of the moduli
+                BigInteger x = new BigInteger(1+rng.nextInt(product.bitLength()*(j+1)+100), rng);
+                if (j%2 == 1)
+                    x = x.negate();
+                BigInteger[] residues = tree.mod(x);
+                assertEquals(k, residues.length);
+                for (int i=0; i<k; i++)
+                    assertEquals(x.mod(moduli[i]), residues[i]);
+                assertArrayEquals(residues, x.modAll(moduli));
+            }
+        }
+    }
+
+    @Test
+    public void testEdgeCases() {
+        RemainderTree empty = new RemainderTree(new BigInteger[0]);
+        assertEquals(BigInteger.ONE, empty.getProduct());
+        assertEquals(0, empty.mod(BigInteger.TEN).length);
+
+        BigInteger[] moduli = {BigInteger.ONE, BigInteger.valueOf(7), BigInteger.valueOf(7)};
+        BigInteger[] expected = {BigInteger.ZERO, BigInteger.valueOf(4), BigInteger.valueOf(4)};
+        assertArrayEquals(expected, new RemainderTree(moduli).mod(BigInteger.valueOf(-10)));
+        assertArrayEquals(new BigInteger[] {BigInteger.ZERO}, BigInteger.ZERO.modAll(new BigInteger[] {BigInteger.TEN}));
+    }
+
+    @Test(expected=ArithmeticException.class)
+    public void testNonPositiveModulus() {
+        new RemainderTree(new BigInteger[] {BigInteger.TEN, BigInteger.ZERO});
+    }
+}